@@ -0,0 +1,74 @@
+package benchmarks;
+
+import models.FleetRegistry;
+import models.FreightWagon;
+import models.Locomotive;
+import models.MarshallingYard;
+import models.Train;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Benchmarks of concurrent moves of wagons in a MarshallingYard, with and without a FleetRegistry
+ * that follows every move. Every worker thread shuttles wagons between its own pair of trains,
+ * so the workers only contend for the locks of the registry, not for the locks of the trains.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class FleetRegistryBenchmark {
+    private static final int NUMBER_OF_TRAIN_PAIRS = 64;
+    private static final int WAGONS_PER_TRAIN = 100;
+
+    @Param({"false", "true"})
+    public boolean registered;
+
+    private MarshallingYard yard;
+    private final AtomicInteger nextPair = new AtomicInteger();
+
+    @State(Scope.Thread)
+    public static class Worker {
+        int fromLocNumber;
+        int toLocNumber;
+        int wagon;
+
+        @Setup(Level.Trial)
+        public void setup(FleetRegistryBenchmark benchmark) {
+            int pair = benchmark.nextPair.getAndIncrement() % NUMBER_OF_TRAIN_PAIRS;
+            fromLocNumber = 2 * pair + 1;
+            toLocNumber = 2 * pair + 2;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setup() {
+        yard = new MarshallingYard();
+        FleetRegistry registry = new FleetRegistry(yard);
+        for (int locNumber = 1; locNumber <= 2 * NUMBER_OF_TRAIN_PAIRS; locNumber++) {
+            Train train = new Train(new Locomotive(locNumber, 2 * WAGONS_PER_TRAIN), "Amsterdam", "Berlin");
+            if (locNumber % 2 == 1) {
+                for (int i = 0; i < WAGONS_PER_TRAIN; i++) {
+                    train.attachToRear(new FreightWagon(locNumber * WAGONS_PER_TRAIN + i, 1000));
+                }
+            }
+            yard.addTrain(train);
+            if (registered) {
+                registry.addTrain(train);
+            }
+        }
+    }
+
+    @Benchmark
+    public boolean moveOneWagonAndBack(Worker worker) {
+        int wagonId = worker.fromLocNumber * WAGONS_PER_TRAIN + worker.wagon;
+        worker.wagon = (worker.wagon + 1) % WAGONS_PER_TRAIN;
+        return yard.moveOneWagon(worker.fromLocNumber, wagonId, worker.toLocNumber)
+                && yard.moveOneWagon(worker.toLocNumber, wagonId, worker.fromLocNumber);
+    }
+}
@@ -0,0 +1,117 @@
+package benchmarks;
+
+import models.Locomotive;
+import models.PassengerWagon;
+import models.Train;
+import models.Wagon;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the Train and Wagon operations over consists of various lengths.
+ * Operations that change the train are paired with the operation that restores it,
+ * so every invocation measures the same configuration.
+ * Run with the gc profiler (the default of the benchmark profile) to report allocation rates.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TrainBenchmark {
+
+    @Param({"10", "1000", "100000", "1000000"})
+    public int numberOfWagons;
+
+    @Param({"false", "true"})
+    public boolean positionalIndex;
+
+    private Train train;
+    private Train scratchTrain;
+    private Wagon spareWagon;
+    private Wagon spareSequence;
+    private int nextId;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        train = new Train(new Locomotive(1, Integer.MAX_VALUE), "Amsterdam", "Paris");
+        Wagon first = null;
+        Wagon last = null;
+        for (int id = 1; id <= numberOfWagons; id++) {
+            Wagon wagon = new PassengerWagon(id, 40);
+            if (first == null) {
+                first = wagon;
+            } else {
+                last.attachTail(wagon);
+            }
+            last = wagon;
+        }
+        train.setFirstWagon(first);
+        train.setPositionalIndex(positionalIndex);
+
+        scratchTrain = new Train(new Locomotive(2, Integer.MAX_VALUE), "Amsterdam", "London");
+        scratchTrain.setPositionalIndex(positionalIndex);
+        spareWagon = new PassengerWagon(0, 40);
+        spareSequence = new PassengerWagon(-1, 40);
+        spareSequence.attachTail(new PassengerWagon(-2, 40));
+    }
+
+    @Benchmark
+    public boolean attachToRear() {
+        boolean attached = train.attachToRear(spareWagon);
+        // detach the spare wagon again, leaving it without a train
+        train.splitAtPosition(numberOfWagons + 1, scratchTrain);
+        scratchTrain.setFirstWagon(null);
+        return attached;
+    }
+
+    @Benchmark
+    public boolean insertAtPosition() {
+        boolean inserted = train.insertAtPosition(numberOfWagons / 2 + 1, spareWagon);
+        train.moveOneWagon(spareWagon.getId(), scratchTrain);
+        scratchTrain.setFirstWagon(null);
+        return inserted;
+    }
+
+    @Benchmark
+    public Wagon findWagonById() {
+        nextId = nextId % numberOfWagons + 1;
+        return train.findWagonById(nextId);
+    }
+
+    @Benchmark
+    public boolean splitAtPosition() {
+        boolean split = train.splitAtPosition(numberOfWagons / 2 + 1, scratchTrain);
+        scratchTrain.splitAtPosition(1, train);
+        return split;
+    }
+
+    @Benchmark
+    public Train reverse() {
+        train.reverse();
+        return train;
+    }
+
+    @Benchmark
+    public Wagon reverseAndRelink() {
+        train.reverse();
+        return train.getFirstWagon();
+    }
+
+    @Benchmark
+    public int getTotalNumberOfSeats() {
+        return train.getTotalNumberOfSeats();
+    }
+
+    @Benchmark
+    public boolean canAttachWagon() {
+        return train.canAttach(spareWagon);
+    }
+
+    @Benchmark
+    public boolean canAttachSequence() {
+        return train.canAttach(spareSequence);
+    }
+}
@@ -0,0 +1,464 @@
+package models;
+
+/**
+ * An alternative to Train for very long consists, which does not keep the Wagon objects
+ * but stores the properties of its wagons in parallel primitive arrays.
+ * The arrays have a gap at the last insertion point (a gap buffer), so repeated insertions
+ * at or near the same position do not shift the whole consist.
+ * Aggregations run as tight loops over a single column of the consist.
+ * <p>
+ * Wagons that are attached or inserted are copied into the consist, the Wagon objects themselves are not retained.
+ * Wagons that are handed out by findWagonAtPosition, findWagonById and getLastWagonAttached
+ * are new, detached wagons with the properties of the wagon in the consist.
+ */
+public class CompactTrain {
+    private static final int INITIAL_CAPACITY = 16;
+    private static final byte PASSENGER = 1;
+    private static final byte FREIGHT = 2;
+
+    private String origin;
+    private String destination;
+    private Locomotive engine;
+
+    // parallel columns with the properties of the wagons
+    private int[] ids = new int[INITIAL_CAPACITY];
+    private byte[] kinds = new byte[INITIAL_CAPACITY];
+    private int[] seats = new int[INITIAL_CAPACITY];
+    private int[] maxWeights = new int[INITIAL_CAPACITY];
+
+    // the unused slots of the columns are found at [gapStart, gapEnd)
+    private int gapStart = 0;
+    private int gapEnd = INITIAL_CAPACITY;
+
+    /* Representation invariants:
+        engine != null
+        all columns have the same length
+        0 <= gapStart <= gapEnd <= ids.length
+        the wagon at position p (starting at 1) is found at slot p - 1 if p <= gapStart
+        or at slot p - 1 + (gapEnd - gapStart) otherwise
+        all wagons in the consist have the same kind
+     */
+
+    public CompactTrain(Locomotive engine, String origin, String destination) {
+        this.engine = engine;
+        this.destination = destination;
+        this.origin = origin;
+    }
+
+    /**
+     * Creates a compact copy of the given train with all its wagons
+     *
+     * @param train
+     * @return the copy
+     */
+    public static CompactTrain of(Train train) {
+        CompactTrain compactTrain = new CompactTrain(train.getEngine(), train.getOrigin(), train.getDestination());
+        if (train.hasWagons()) {
+            compactTrain.insert(0, train.getFirstWagon(), train.getNumberOfWagons());
+        }
+        return compactTrain;
+    }
+
+    public boolean hasWagons() {
+        return getNumberOfWagons() > 0;
+    }
+
+    public boolean isPassengerTrain() {
+        return hasWagons() && kinds[slot(0)] == PASSENGER;
+    }
+
+    public boolean isFreightTrain() {
+        return hasWagons() && kinds[slot(0)] == FREIGHT;
+    }
+
+    public Locomotive getEngine() {
+        return engine;
+    }
+
+    public String getOrigin() {
+        return origin;
+    }
+
+    public String getDestination() {
+        return destination;
+    }
+
+    /**
+     * @return the number of Wagons connected to the train
+     */
+    public int getNumberOfWagons() {
+        return ids.length - (gapEnd - gapStart);
+    }
+
+    /**
+     * @return a detached copy of the last wagon of the train, or null if the train has no wagons
+     */
+    public Wagon getLastWagonAttached() {
+        return findWagonAtPosition(getNumberOfWagons());
+    }
+
+    /**
+     * @return the total number of seats on a passenger train
+     * (return 0 for a freight train)
+     */
+    public int getTotalNumberOfSeats() {
+        return sum(seats);
+    }
+
+    /**
+     * @return the total maximum weight of a freight train
+     * (return 0 for a passenger train)
+     */
+    public int getTotalMaxWeight() {
+        return sum(maxWeights);
+    }
+
+    private int sum(int[] column) {
+        int total = 0;
+        for (int i = 0; i < gapStart; i++) {
+            total += column[i];
+        }
+        for (int i = gapEnd; i < column.length; i++) {
+            total += column[i];
+        }
+        return total;
+    }
+
+    /**
+     * Finds the wagon at the given position (starting at 1 for the first wagon of the train)
+     *
+     * @param position
+     * @return a detached copy of the wagon found at the given position
+     * (return null if the position is not valid for this train)
+     */
+    public Wagon findWagonAtPosition(int position) {
+        if (position <= 0 || position > getNumberOfWagons()) {
+            return null;
+        }
+        return copyOf(slot(position - 1));
+    }
+
+    /**
+     * Finds the wagon with a given wagonId, by scanning the column of ids
+     *
+     * @param wagonId
+     * @return a detached copy of the wagon found
+     * (return null if no wagon was found with the given wagonId)
+     */
+    public Wagon findWagonById(int wagonId) {
+        int index = indexOf(wagonId);
+        return index < 0 ? null : copyOf(slot(index));
+    }
+
+    private int indexOf(int wagonId) {
+        for (int i = 0; i < gapStart; i++) {
+            if (ids[i] == wagonId) {
+                return i;
+            }
+        }
+        for (int i = gapEnd; i < ids.length; i++) {
+            if (ids[i] == wagonId) {
+                return i - (gapEnd - gapStart);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Determines if the given sequence of wagons can be attached to the train
+     * Verifies that the type of wagons match the type of train (Passenger or Freight)
+     * Verifies that the capacity of the engine is sufficient to pull the additional wagons
+     *
+     * @param wagon the first wagon of a sequence of wagons to be attached
+     * @return whether the sequence can be attached
+     */
+    public boolean canAttach(Wagon wagon) {
+        if (wagon == null) {
+            return false;
+        }
+        int numberOfWagons = 0;
+        for (Wagon next = wagon; next != null; next = next.getNextWagon()) {
+            numberOfWagons++;
+        }
+        return canAttach(kindOf(wagon), numberOfWagons);
+    }
+
+    private boolean canAttach(byte kind, int numberOfWagons) {
+        if (hasWagons() && kinds[slot(0)] != kind) {
+            return false;
+        }
+        return getEngine().getMaxWagons() >= getNumberOfWagons() + numberOfWagons;
+    }
+
+    /**
+     * Tries to attach a copy of the given sequence of wagons to the rear of the train
+     * No change is made if the attachment cannot be made.
+     * (when the sequence is not compatible or the engine has insufficient capacity)
+     *
+     * @param wagon the first wagon of a sequence of wagons to be attached
+     * @return whether the attachment could be completed successfully
+     */
+    public boolean attachToRear(Wagon wagon) {
+        return insertAtIndex(getNumberOfWagons(), wagon);
+    }
+
+    /**
+     * Tries to insert a copy of the given sequence of wagons at the front of the train
+     * No change is made if the insertion cannot be made.
+     * (when the sequence is not compatible or the engine has insufficient capacity)
+     *
+     * @param wagon the first wagon of a sequence of wagons to be attached
+     * @return whether the insertion could be completed successfully
+     */
+    public boolean insertAtFront(Wagon wagon) {
+        return insertAtIndex(0, wagon);
+    }
+
+    /**
+     * Tries to insert a copy of the given sequence of wagons at/before the given wagon position in the train
+     * No change is made if the insertion cannot be made.
+     * (when the sequence is not compatible of the engine has insufficient capacity
+     * or the given position is not valid in this train)
+     *
+     * @param position
+     * @param wagon    the first wagon of a sequence of wagons to be attached
+     * @return whether the insertion could be completed successfully
+     */
+    public boolean insertAtPosition(int position, Wagon wagon) {
+        if (position <= 0 || position > Math.max(1, getNumberOfWagons())) {
+            return false;
+        }
+        return insertAtIndex(position - 1, wagon);
+    }
+
+    private boolean insertAtIndex(int index, Wagon wagon) {
+        if (!canAttach(wagon)) {
+            return false;
+        }
+        int numberOfWagons = 0;
+        for (Wagon next = wagon; next != null; next = next.getNextWagon()) {
+            numberOfWagons++;
+        }
+        insert(index, wagon, numberOfWagons);
+        return true;
+    }
+
+    /**
+     * Tries to remove one Wagon with the given wagonId from this train
+     * and attach it at the rear of the given toTrain
+     * No change is made if the removal or attachment cannot be made
+     * (when the wagon cannot be found, or the trains are not compatible
+     * or the engine of toTrain has insufficient capacity)
+     *
+     * @param wagonId
+     * @param toTrain
+     * @return whether the move could be completed successfully
+     */
+    public boolean moveOneWagon(int wagonId, CompactTrain toTrain) {
+        int index = indexOf(wagonId);
+        if (index < 0 || !toTrain.canAttach(kinds[slot(index)], 1)) {
+            return false;
+        }
+        moveRange(index, index + 1, toTrain);
+        return true;
+    }
+
+    /**
+     * Tries to split this train before the given position and move the complete sequence
+     * of wagons from the given position to the rear of toTrain.
+     * No change is made if the split or re-attachment cannot be made
+     * (when the position is not valid for this train, or the trains are not compatible
+     * or the engine of toTrain has insufficient capacity)
+     *
+     * @param position
+     * @param toTrain
+     * @return whether the move could be completed successfully
+     */
+    public boolean splitAtPosition(int position, CompactTrain toTrain) {
+        int numberOfWagons = getNumberOfWagons();
+        if (position <= 0 || position > numberOfWagons
+                || !toTrain.canAttach(kinds[slot(position - 1)], numberOfWagons - position + 1)) {
+            return false;
+        }
+        moveRange(position - 1, numberOfWagons, toTrain);
+        return true;
+    }
+
+    /**
+     * Reverses the sequence of wagons in this train (if any)
+     * i.e. the last wagon becomes the first wagon
+     * the previous wagon of the last wagon becomes the second wagon
+     * etc.
+     */
+    public void reverse() {
+        moveGap(getNumberOfWagons());
+        for (int front = 0, rear = gapStart - 1; front < rear; front++, rear--) {
+            swap(front, rear);
+        }
+    }
+
+    /**
+     * Creates a Train with new wagons that have the properties of the wagons of this consist
+     *
+     * @return the new train
+     */
+    public Train toTrain() {
+        Train train = new Train(getEngine(), getOrigin(), getDestination());
+        Wagon first = null;
+        Wagon last = null;
+        for (int index = 0; index < getNumberOfWagons(); index++) {
+            Wagon wagon = copyOf(slot(index));
+            if (first == null) {
+                first = wagon;
+            } else {
+                last.attachTail(wagon);
+            }
+            last = wagon;
+        }
+        train.setFirstWagon(first);
+        return train;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder wagons = new StringBuilder();
+        for (int index = 0; index < getNumberOfWagons(); index++) {
+            wagons.append("[Wagon-").append(ids[slot(index)]).append(']');
+        }
+        return getEngine().toString() +
+                wagons +
+                " with " +
+                getNumberOfWagons() +
+                " wagons from " +
+                getOrigin() +
+                " to " +
+                getDestination();
+    }
+
+    /**
+     * @return the slot in the columns that holds the wagon at the given index (starting at 0)
+     */
+    private int slot(int index) {
+        return index < gapStart ? index : index + (gapEnd - gapStart);
+    }
+
+    private static byte kindOf(Wagon wagon) {
+        return wagon instanceof PassengerWagon ? PASSENGER : FREIGHT;
+    }
+
+    private Wagon copyOf(int slot) {
+        if (kinds[slot] == PASSENGER) {
+            return new PassengerWagon(ids[slot], seats[slot]);
+        } else {
+            return new FreightWagon(ids[slot], maxWeights[slot]);
+        }
+    }
+
+    /**
+     * Copies the properties of a sequence of wagons into the consist at the given index
+     */
+    private void insert(int index, Wagon wagon, int numberOfWagons) {
+        moveGap(index);
+        ensureGap(numberOfWagons);
+        for (; wagon != null; wagon = wagon.getNextWagon()) {
+            ids[gapStart] = wagon.getId();
+            kinds[gapStart] = kindOf(wagon);
+            seats[gapStart] = wagon instanceof PassengerWagon ? ((PassengerWagon) wagon).getNumberOfSeats() : 0;
+            maxWeights[gapStart] = wagon instanceof FreightWagon ? ((FreightWagon) wagon).getMaxWeight() : 0;
+            gapStart++;
+        }
+    }
+
+    /**
+     * Moves the wagons at the index range [from, to) to the rear of toTrain
+     */
+    private void moveRange(int from, int to, CompactTrain toTrain) {
+        if (toTrain == this) {
+            // move the range out of the way first, before appending it again
+            CompactTrain transfer = new CompactTrain(getEngine(), getOrigin(), getDestination());
+            moveRange(from, to, transfer);
+            transfer.moveRange(0, to - from, this);
+            return;
+        }
+        int length = to - from;
+        // collect the range in front of the gap, so it is contiguous
+        moveGap(to);
+        toTrain.moveGap(toTrain.getNumberOfWagons());
+        toTrain.ensureGap(length);
+        int start = gapStart - length;
+        System.arraycopy(ids, start, toTrain.ids, toTrain.gapStart, length);
+        System.arraycopy(kinds, start, toTrain.kinds, toTrain.gapStart, length);
+        System.arraycopy(seats, start, toTrain.seats, toTrain.gapStart, length);
+        System.arraycopy(maxWeights, start, toTrain.maxWeights, toTrain.gapStart, length);
+        toTrain.gapStart += length;
+        gapStart = start;
+    }
+
+    /**
+     * Moves the gap to the given index, by shifting the wagons in between across the gap
+     */
+    private void moveGap(int index) {
+        int gapLength = gapEnd - gapStart;
+        if (index < gapStart) {
+            shift(index, index + gapLength, gapStart - index);
+        } else if (index > gapStart) {
+            shift(gapEnd, gapStart, index - gapStart);
+        }
+        gapStart = index;
+        gapEnd = index + gapLength;
+    }
+
+    /**
+     * Grows the columns if the gap has room for less than the given number of wagons
+     */
+    private void ensureGap(int numberOfWagons) {
+        if (gapEnd - gapStart >= numberOfWagons) {
+            return;
+        }
+        int size = getNumberOfWagons();
+        int capacity = Math.max(2 * ids.length, size + numberOfWagons);
+        int rearLength = ids.length - gapEnd;
+        int newGapEnd = capacity - rearLength;
+        ids = grow(ids, capacity, newGapEnd);
+        kinds = grow(kinds, capacity, newGapEnd);
+        seats = grow(seats, capacity, newGapEnd);
+        maxWeights = grow(maxWeights, capacity, newGapEnd);
+        gapEnd = newGapEnd;
+    }
+
+    private int[] grow(int[] column, int capacity, int newGapEnd) {
+        int[] grown = new int[capacity];
+        System.arraycopy(column, 0, grown, 0, gapStart);
+        System.arraycopy(column, gapEnd, grown, newGapEnd, column.length - gapEnd);
+        return grown;
+    }
+
+    private byte[] grow(byte[] column, int capacity, int newGapEnd) {
+        byte[] grown = new byte[capacity];
+        System.arraycopy(column, 0, grown, 0, gapStart);
+        System.arraycopy(column, gapEnd, grown, newGapEnd, column.length - gapEnd);
+        return grown;
+    }
+
+    private void shift(int from, int to, int length) {
+        System.arraycopy(ids, from, ids, to, length);
+        System.arraycopy(kinds, from, kinds, to, length);
+        System.arraycopy(seats, from, seats, to, length);
+        System.arraycopy(maxWeights, from, maxWeights, to, length);
+    }
+
+    private void swap(int slot1, int slot2) {
+        int id = ids[slot1];
+        ids[slot1] = ids[slot2];
+        ids[slot2] = id;
+        byte kind = kinds[slot1];
+        kinds[slot1] = kinds[slot2];
+        kinds[slot2] = kind;
+        int seat = seats[slot1];
+        seats[slot1] = seats[slot2];
+        seats[slot2] = seat;
+        int maxWeight = maxWeights[slot1];
+        maxWeights[slot1] = maxWeights[slot2];
+        maxWeights[slot2] = maxWeight;
+    }
+}
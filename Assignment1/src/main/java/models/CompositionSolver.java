@@ -0,0 +1,411 @@
+package models;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.IntStream;
+
+/**
+ * Composes trains from pools of locomotives and wagons, to meet the demand for seats and freight capacity per route.
+ * <p>
+ * The demands are met one by one, in the given order. For every demand the solver selects
+ * <ul>
+ *     <li>the smallest number of wagons of the same kind that meet the demand, and among those,
+ *     the wagons with the smallest total capacity, so the larger wagons remain available for later demands</li>
+ *     <li>the smallest number of locomotives that can pull those wagons, and among those,
+ *     the locomotives with the smallest total capacity</li>
+ * </ul>
+ * Both selections are exact. Items of the same capacity are interchangeable, so the search runs over
+ * capacity classes: a branch-and-bound search over the number of items taken from each class,
+ * with memoisation of the optimal completion of every partial selection,
+ * of which the branches at the first class are explored in parallel.
+ * The search is fast for pools with many items but few distinct capacities, as in real fleets.
+ * <p>
+ * The wagons in the pool should not be attached to other wagons.
+ */
+public class CompositionSolver {
+    private static final long INFEASIBLE = Long.MAX_VALUE;
+
+    // the remaining pools, by capacity in descending order
+    private final TreeMap<Integer, Deque<Locomotive>> locomotives = new TreeMap<>(Comparator.reverseOrder());
+    private final TreeMap<Integer, Deque<Wagon>> passengerWagons = new TreeMap<>(Comparator.reverseOrder());
+    private final TreeMap<Integer, Deque<Wagon>> freightWagons = new TreeMap<>(Comparator.reverseOrder());
+
+    /**
+     * The demand for seats and freight capacity on a route
+     */
+    public static class Demand {
+        private final String origin;
+        private final String destination;
+        private final int numberOfSeats;
+        private final int maxWeight;
+
+        public Demand(String origin, String destination, int numberOfSeats, int maxWeight) {
+            this.origin = origin;
+            this.destination = destination;
+            this.numberOfSeats = numberOfSeats;
+            this.maxWeight = maxWeight;
+        }
+
+        public String getOrigin() {
+            return origin;
+        }
+
+        public String getDestination() {
+            return destination;
+        }
+
+        public int getNumberOfSeats() {
+            return numberOfSeats;
+        }
+
+        public int getMaxWeight() {
+            return maxWeight;
+        }
+
+        @Override
+        public String toString() {
+            return "[Demand " + origin + " to " + destination + " for " + numberOfSeats + " seats and "
+                    + maxWeight + " weight]";
+        }
+    }
+
+    public CompositionSolver(Collection<Locomotive> locomotives, Collection<? extends Wagon> wagons) {
+        for (Locomotive locomotive : locomotives) {
+            addTo(this.locomotives, locomotive.getMaxWagons(), locomotive);
+        }
+        for (Wagon wagon : wagons) {
+            if (wagon instanceof PassengerWagon) {
+                addTo(passengerWagons, ((PassengerWagon) wagon).getNumberOfSeats(), wagon);
+            } else if (wagon instanceof FreightWagon) {
+                addTo(freightWagons, ((FreightWagon) wagon).getMaxWeight(), wagon);
+            }
+        }
+    }
+
+    private static <T> void addTo(TreeMap<Integer, Deque<T>> pool, int capacity, T item) {
+        if (capacity > 0) {
+            pool.computeIfAbsent(capacity, c -> new ArrayDeque<>()).add(item);
+        }
+    }
+
+    public int getNumberOfLocomotives() {
+        return sizeOf(locomotives);
+    }
+
+    public int getNumberOfWagons() {
+        return sizeOf(passengerWagons) + sizeOf(freightWagons);
+    }
+
+    private static int sizeOf(Map<Integer, ? extends Collection<?>> pool) {
+        return pool.values().stream().mapToInt(Collection::size).sum();
+    }
+
+    /**
+     * Composes the trains for every demand, in order, from the remaining pools
+     * A demand that cannot be met from the remaining pools takes nothing from the pools.
+     *
+     * @param demands
+     * @return the trains composed for every demand, in the order of the demands
+     * (a demand maps to no trains if it cannot be met)
+     */
+    public Map<Demand, List<Train>> compose(List<Demand> demands) {
+        Map<Demand, List<Train>> trains = new LinkedHashMap<>();
+        for (Demand demand : demands) {
+            trains.put(demand, compose(demand));
+        }
+        return trains;
+    }
+
+    /**
+     * Composes the passenger and freight trains for one demand
+     *
+     * @return the trains, or an empty list if the demand cannot be met
+     */
+    public List<Train> compose(Demand demand) {
+        Plan passengerPlan = plan(passengerWagons, demand.getNumberOfSeats(), locomotives);
+        Plan freightPlan = passengerPlan == null ? null
+                : plan(freightWagons, demand.getMaxWeight(), withoutLocomotives(passengerPlan));
+        List<Train> trains = new ArrayList<>();
+        if (freightPlan == null) {
+            return trains;
+        }
+        trains.addAll(assemble(passengerPlan, passengerWagons, demand));
+        trains.addAll(assemble(freightPlan, freightWagons, demand));
+        return trains;
+    }
+
+    /**
+     * The numbers of wagons and locomotives to take from every capacity class of the pools
+     */
+    private static class Plan {
+        final Map<Integer, Integer> wagons;
+        final Map<Integer, Integer> locomotives;
+
+        Plan(Map<Integer, Integer> wagons, Map<Integer, Integer> locomotives) {
+            this.wagons = wagons;
+            this.locomotives = locomotives;
+        }
+    }
+
+    /**
+     * Plans the wagons and locomotives for a demand of one kind
+     *
+     * @return the plan, or null if the demand cannot be met
+     */
+    private static Plan plan(TreeMap<Integer, Deque<Wagon>> wagons, int demand,
+                             TreeMap<Integer, ? extends Collection<?>> locomotives) {
+        if (demand <= 0) {
+            return new Plan(Map.of(), Map.of());
+        }
+        Map<Integer, Integer> selectedWagons = select(countsOf(wagons), demand);
+        if (selectedWagons == null) {
+            return null;
+        }
+        int numberOfWagons = selectedWagons.values().stream().mapToInt(Integer::intValue).sum();
+        Map<Integer, Integer> selectedLocomotives = select(countsOf(locomotives), numberOfWagons);
+        return selectedLocomotives == null ? null : new Plan(selectedWagons, selectedLocomotives);
+    }
+
+    private static TreeMap<Integer, Integer> countsOf(TreeMap<Integer, ? extends Collection<?>> pool) {
+        TreeMap<Integer, Integer> counts = new TreeMap<>(Comparator.reverseOrder());
+        pool.forEach((capacity, items) -> {
+            if (!items.isEmpty()) {
+                counts.put(capacity, items.size());
+            }
+        });
+        return counts;
+    }
+
+    /**
+     * @return the pool of locomotives without the locomotives of the plan
+     */
+    private TreeMap<Integer, List<Locomotive>> withoutLocomotives(Plan plan) {
+        TreeMap<Integer, List<Locomotive>> remaining = new TreeMap<>(Comparator.reverseOrder());
+        locomotives.forEach((capacity, pool) -> {
+            List<Locomotive> available = new ArrayList<>(pool);
+            available.subList(0, plan.locomotives.getOrDefault(capacity, 0)).clear();
+            remaining.put(capacity, available);
+        });
+        return remaining;
+    }
+
+    /**
+     * Takes the wagons and locomotives of the plan from the pools,
+     * and attaches the wagons to the rear of the locomotives, filling the largest locomotives first
+     */
+    private List<Train> assemble(Plan plan, TreeMap<Integer, Deque<Wagon>> wagons, Demand demand) {
+        Deque<Wagon> selectedWagons = new ArrayDeque<>();
+        plan.wagons.forEach((capacity, count) -> take(wagons, capacity, count, selectedWagons));
+        List<Locomotive> selectedLocomotives = new ArrayList<>();
+        plan.locomotives.forEach((capacity, count) -> take(locomotives, capacity, count, selectedLocomotives));
+        selectedLocomotives.sort(Comparator.comparingInt(Locomotive::getMaxWagons).reversed());
+
+        List<Train> trains = new ArrayList<>();
+        for (Locomotive locomotive : selectedLocomotives) {
+            Train train = new Train(locomotive, demand.getOrigin(), demand.getDestination());
+            while (!selectedWagons.isEmpty() && train.canAttach(selectedWagons.peek())) {
+                train.attachToRear(selectedWagons.poll());
+            }
+            trains.add(train);
+        }
+        return trains;
+    }
+
+    private static <T> void take(TreeMap<Integer, Deque<T>> pool, int capacity, int count, Collection<T> into) {
+        Deque<T> items = pool.get(capacity);
+        for (int i = 0; i < count; i++) {
+            into.add(items.poll());
+        }
+        if (items.isEmpty()) {
+            pool.remove(capacity);
+        }
+    }
+
+    /**
+     * Selects the smallest number of items with a total capacity of at least the demand,
+     * and among those, the items with the smallest total capacity
+     *
+     * @param counts the number of items of every capacity, by capacity in descending order
+     * @param demand
+     * @return the number of items to take of every capacity, or null if the demand cannot be met
+     */
+    static Map<Integer, Integer> select(TreeMap<Integer, Integer> counts, long demand) {
+        int[] capacities = counts.keySet().stream().mapToInt(Integer::intValue).toArray();
+        int[] available = counts.values().stream().mapToInt(Integer::intValue).toArray();
+        // the largest items meet the demand with the smallest number of items
+        int numberOfItems = 0;
+        long total = 0;
+        for (int i = 0; i < capacities.length && total < demand; i++) {
+            int taken = (int) Math.min(available[i], (demand - total + capacities[i] - 1) / capacities[i]);
+            numberOfItems += taken;
+            total += (long) taken * capacities[i];
+        }
+        if (total < demand) {
+            return null;
+        }
+        int[] taken = new Search(capacities, available).select(numberOfItems, demand);
+        Map<Integer, Integer> selection = new LinkedHashMap<>();
+        for (int i = 0; i < capacities.length; i++) {
+            if (taken[i] > 0) {
+                selection.put(capacities[i], taken[i]);
+            }
+        }
+        return selection;
+    }
+
+    /**
+     * A search for exactly a given number of items from capacity classes,
+     * with a total capacity of at least a demand and as small as possible
+     */
+    private static class Search {
+        private final int[] capacities;     // in descending order
+        private final int[] available;
+        // the optimal total capacity of every subproblem that has been solved
+        private final ConcurrentMap<State, Long> memo = new ConcurrentHashMap<>();
+
+        /**
+         * A subproblem: take exactly numberOfItems items from the classes from index on,
+         * with a total capacity of at least demand
+         */
+        private static class State {
+            final int index;
+            final int numberOfItems;
+            final long demand;
+
+            State(int index, int numberOfItems, long demand) {
+                this.index = index;
+                this.numberOfItems = numberOfItems;
+                this.demand = demand;
+            }
+
+            @Override
+            public boolean equals(Object o) {
+                if (!(o instanceof State)) {
+                    return false;
+                }
+                State other = (State) o;
+                return index == other.index && numberOfItems == other.numberOfItems && demand == other.demand;
+            }
+
+            @Override
+            public int hashCode() {
+                return Objects.hash(index, numberOfItems, demand);
+            }
+        }
+
+        Search(int[] capacities, int[] available) {
+            this.capacities = capacities;
+            this.available = available;
+        }
+
+        /**
+         * @return the number of items to take from every class
+         */
+        int[] select(int numberOfItems, long demand) {
+            long best = optimumInParallel(numberOfItems, demand);
+            // reconstruct the selection from the optimal subproblems
+            int[] taken = new int[capacities.length];
+            for (int index = 0; index < capacities.length && numberOfItems > 0; index++) {
+                for (int count = Math.min(available[index], numberOfItems); count >= 0; count--) {
+                    if (branch(index, count, numberOfItems, demand) == best) {
+                        taken[index] = count;
+                        best -= (long) count * capacities[index];
+                        demand -= (long) count * capacities[index];
+                        numberOfItems -= count;
+                        break;
+                    }
+                }
+            }
+            return taken;
+        }
+
+        /**
+         * Explores the branches of the first class in parallel, sharing the memo
+         */
+        private long optimumInParallel(int numberOfItems, long demand) {
+            return IntStream.rangeClosed(0, Math.min(available[0], numberOfItems)).parallel()
+                    .mapToLong(taken -> branch(0, taken, numberOfItems, demand))
+                    .min().orElse(INFEASIBLE);
+        }
+
+        /**
+         * @return the optimal total capacity when taking the given number of items from the class at index,
+         * or INFEASIBLE
+         */
+        private long branch(int index, int taken, int numberOfItems, long demand) {
+            long capacity = (long) taken * capacities[index];
+            long rest = optimum(index + 1, numberOfItems - taken, demand - capacity);
+            return rest == INFEASIBLE ? INFEASIBLE : capacity + rest;
+        }
+
+        /**
+         * @return the smallest total capacity of exactly numberOfItems items from the classes from index on,
+         * that is at least the demand, or INFEASIBLE if the demand cannot be met
+         */
+        private long optimum(int index, int numberOfItems, long demand) {
+            long smallest = extremeSum(index, numberOfItems, false);
+            if (smallest == INFEASIBLE || smallest >= demand) {
+                // not enough items left, or the smallest items already meet the demand
+                return smallest;
+            }
+            if (extremeSum(index, numberOfItems, true) < demand) {
+                return INFEASIBLE;
+            }
+            State state = new State(index, numberOfItems, demand);
+            Long known = memo.get(state);
+            if (known != null) {
+                return known;
+            }
+            long best = INFEASIBLE;
+            for (int taken = Math.min(available[index], numberOfItems); taken >= 0; taken--) {
+                long capacity = (long) taken * capacities[index];
+                int rest = numberOfItems - taken;
+                // bound: with fewer items from this class, the demand can only be met with smaller items
+                long highest = extremeSum(index + 1, rest, true);
+                if (highest == INFEASIBLE || capacity + highest < demand) {
+                    break;
+                }
+                // bound: the remaining items cannot be smaller than the smallest items of the later classes
+                long lowest = extremeSum(index + 1, rest, false);
+                if (lowest == INFEASIBLE || Math.max(demand, capacity + lowest) >= best) {
+                    continue;
+                }
+                long restOptimum = optimum(index + 1, rest, demand - capacity);
+                if (restOptimum != INFEASIBLE) {
+                    best = Math.min(best, capacity + restOptimum);
+                }
+                if (best == demand) {
+                    break;
+                }
+            }
+            memo.put(state, best);
+            return best;
+        }
+
+        /**
+         * @return the total capacity of the given number of largest (or smallest) items
+         * from the classes from index on, or INFEASIBLE if there are not enough items
+         */
+        private long extremeSum(int index, int numberOfItems, boolean largest) {
+            long sum = 0;
+            int remaining = numberOfItems;
+            for (int i = 0; i < capacities.length - index && remaining > 0; i++) {
+                int c = largest ? index + i : capacities.length - 1 - i;
+                int taken = Math.min(available[c], remaining);
+                sum += (long) taken * capacities[c];
+                remaining -= taken;
+            }
+            return remaining > 0 ? INFEASIBLE : sum;
+        }
+    }
+}
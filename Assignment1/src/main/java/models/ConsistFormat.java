@@ -0,0 +1,241 @@
+package models;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A compact binary format of a single train, with the properties of its wagons in packed columns.
+ * <pre>
+ *     magic                 int        CONSIST_MAGIC
+ *     locNumber, maxWagons  int, int
+ *     origin, destination   int length + UTF-8 bytes each
+ *     kind                  byte       'P' for passenger wagons, 'F' for freight wagons, 0 without wagons
+ *     numberOfWagons        int
+ *     ids                   int[numberOfWagons]
+ *     capacities            int[numberOfWagons]   the number of seats or the maximum weight of each wagon
+ * </pre>
+ * The writer walks the wagons once and puts their properties straight into the buffer.
+ * The reader is a view on the buffer that reads the properties of the wagons from the buffer when asked,
+ * without copying them; a Train is only built when asked for with View.toTrain().
+ */
+public class ConsistFormat {
+    public static final int CONSIST_MAGIC = 0x43535431;     // "CST1"
+
+    /**
+     * @param train
+     * @return the number of bytes of the train in the binary format
+     */
+    public static int sizeOf(Train train) {
+        return 4 + 8 + 4 + utf8(train.getOrigin()).length + 4 + utf8(train.getDestination()).length
+                + 1 + 4 + 8 * train.getNumberOfWagons();
+    }
+
+    /**
+     * Writes the train in the binary format to a new buffer of exactly the right size
+     *
+     * @param train
+     * @return the buffer, ready to be read
+     */
+    public static ByteBuffer write(Train train) {
+        ByteBuffer buffer = ByteBuffer.allocate(sizeOf(train));
+        write(train, buffer);
+        return buffer.flip();
+    }
+
+    /**
+     * Writes the train in the binary format at the current position of the buffer,
+     * and advances the position of the buffer beyond the train
+     *
+     * @param train
+     * @param buffer
+     * @throws BufferOverflowException if the buffer has less than sizeOf(train) bytes remaining
+     */
+    public static void write(Train train, ByteBuffer buffer) {
+        int numberOfWagons = train.getNumberOfWagons();
+        buffer.putInt(CONSIST_MAGIC);
+        buffer.putInt(train.getEngine().getLocNumber());
+        buffer.putInt(train.getEngine().getMaxWagons());
+        putString(buffer, train.getOrigin());
+        putString(buffer, train.getDestination());
+        buffer.put((byte) (train.isPassengerTrain() ? 'P' : train.isFreightTrain() ? 'F' : 0));
+        buffer.putInt(numberOfWagons);
+        if (buffer.remaining() < 8 * numberOfWagons) {
+            throw new BufferOverflowException();
+        }
+        int ids = buffer.position();
+        int capacities = ids + 4 * numberOfWagons;
+        int index = 0;
+        for (Wagon wagon : train) {
+            buffer.putInt(ids + 4 * index, wagon.getId());
+            buffer.putInt(capacities + 4 * index, capacityOf(wagon));
+            index++;
+        }
+        buffer.position(capacities + 4 * numberOfWagons);
+    }
+
+    /**
+     * Reads a train in the binary format from the current position of the buffer,
+     * and advances the position of the buffer beyond the train
+     *
+     * @param buffer
+     * @return a view on the train in the buffer
+     * @throws IllegalArgumentException if the buffer does not hold a train in the binary format
+     */
+    public static View read(ByteBuffer buffer) {
+        return new View(buffer);
+    }
+
+    private static byte[] utf8(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void putString(ByteBuffer buffer, String text) {
+        byte[] bytes = utf8(text);
+        buffer.putInt(bytes.length);
+        buffer.put(bytes);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0 || length > buffer.remaining()) {
+            throw new IllegalArgumentException("ERROR: invalid string length " + length);
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static int capacityOf(Wagon wagon) {
+        return wagon instanceof PassengerWagon
+                ? ((PassengerWagon) wagon).getNumberOfSeats() : ((FreightWagon) wagon).getMaxWeight();
+    }
+
+    /**
+     * A read-only view on a train in the binary format
+     */
+    public static class View {
+        private final Locomotive engine;
+        private final String origin;
+        private final String destination;
+        private final byte kind;
+        private final IntBuffer ids;
+        private final IntBuffer capacities;
+
+        private View(ByteBuffer buffer) {
+            if (buffer.remaining() < 4 || buffer.getInt() != CONSIST_MAGIC) {
+                throw new IllegalArgumentException("ERROR: not a binary consist");
+            }
+            engine = new Locomotive(buffer.getInt(), buffer.getInt());
+            origin = getString(buffer);
+            destination = getString(buffer);
+            kind = buffer.get();
+            int numberOfWagons = buffer.getInt();
+            if (kind != 'P' && kind != 'F' && !(kind == 0 && numberOfWagons == 0)
+                    || numberOfWagons < 0 || buffer.remaining() < 8L * numberOfWagons) {
+                throw new IllegalArgumentException("ERROR: invalid consist of " + numberOfWagons
+                        + " wagons of kind " + kind);
+            }
+            ids = slice(buffer, numberOfWagons);
+            capacities = slice(buffer, numberOfWagons);
+        }
+
+        /**
+         * @return a view on the next column of the given length in the buffer, and advances the buffer beyond it
+         */
+        private static IntBuffer slice(ByteBuffer buffer, int length) {
+            ByteBuffer column = buffer.slice().order(buffer.order());
+            column.limit(4 * length);
+            buffer.position(buffer.position() + 4 * length);
+            return column.asIntBuffer();
+        }
+
+        public Locomotive getEngine() {
+            return engine;
+        }
+
+        public String getOrigin() {
+            return origin;
+        }
+
+        public String getDestination() {
+            return destination;
+        }
+
+        public boolean isPassengerTrain() {
+            return kind == 'P';
+        }
+
+        public boolean isFreightTrain() {
+            return kind == 'F';
+        }
+
+        public int getNumberOfWagons() {
+            return ids.limit();
+        }
+
+        /**
+         * @param position the position of the wagon in the train, starting at 1
+         * @return the id of the wagon at the given position
+         */
+        public int getWagonId(int position) {
+            return ids.get(position - 1);
+        }
+
+        /**
+         * @param position the position of the wagon in the train, starting at 1
+         * @return the number of seats or the maximum weight of the wagon at the given position
+         */
+        public int getCapacity(int position) {
+            return capacities.get(position - 1);
+        }
+
+        /**
+         * @return the total number of seats of the passenger wagons in the buffer
+         * (return 0 for a freight train)
+         */
+        public int getTotalNumberOfSeats() {
+            return isPassengerTrain() ? totalCapacity() : 0;
+        }
+
+        /**
+         * @return the total maximum weight of the freight wagons in the buffer
+         * (return 0 for a passenger train)
+         */
+        public int getTotalMaxWeight() {
+            return isFreightTrain() ? totalCapacity() : 0;
+        }
+
+        private int totalCapacity() {
+            int total = 0;
+            for (int i = 0; i < capacities.limit(); i++) {
+                total += capacities.get(i);
+            }
+            return total;
+        }
+
+        /**
+         * Builds the train with new wagons that have the properties of the wagons in the buffer
+         *
+         * @return the new train
+         */
+        public Train toTrain() {
+            Train train = new Train(engine, origin, destination);
+            Wagon first = null;
+            Wagon last = null;
+            for (int i = 0; i < ids.limit(); i++) {
+                Wagon wagon = kind == 'P' ? new PassengerWagon(ids.get(i), capacities.get(i))
+                        : new FreightWagon(ids.get(i), capacities.get(i));
+                if (first == null) {
+                    first = wagon;
+                } else {
+                    last.attachTail(wagon);
+                }
+                last = wagon;
+            }
+            train.setFirstWagon(first);
+            return train;
+        }
+    }
+}
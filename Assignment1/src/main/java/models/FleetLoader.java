@@ -0,0 +1,282 @@
+package models;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Loads a complete fleet of trains from a fleet description file in a single streaming pass.
+ * The wagons of each train are linked directly behind each other while they are read,
+ * and the capacity and wagon types of each train are validated only once, when the train is complete,
+ * so loading a train of n wagons takes O(n) time.
+ * Every wagon id may occur only once in a fleet description, as a wagon cannot be part of two trains.
+ * <p>
+ * The text format has one record per line, with fields separated by ';'.
+ * Empty lines and lines starting with '#' are ignored.
+ * <pre>
+ *     L;locNumber;maxWagons;origin;destination    starts a new train
+ *     P;wagonId;numberOfSeats                     adds a passenger wagon to the current train
+ *     F;wagonId;maxWeight                         adds a freight wagon to the current train
+ * </pre>
+ * The binary format starts with the magic number {@link #BINARY_MAGIC}, followed by one record per train:
+ * locNumber, maxWagons (int), origin, destination (each a presence flag (boolean), followed by the place
+ * in modified UTF-8 if it is present), wagon kind ('P' or 'F', byte),
+ * number of wagons (int) and then a wagon id and number of seats or max weight (int) for every wagon.
+ * Descriptions with the former magic number {@link #BINARY_MAGIC_V1} have no presence flags,
+ * as every train had an origin and destination, and can still be loaded.
+ */
+public class FleetLoader {
+    public static final int BINARY_MAGIC = 0x464C5432;     // "FLT2"
+    public static final int BINARY_MAGIC_V1 = 0x464C5431;  // "FLT1"
+
+    /**
+     * Loads all trains from a fleet description text file
+     *
+     * @param filePath
+     * @return the trains in the order of the file
+     */
+    public static List<Train> loadCsv(String filePath) {
+        try (Reader reader = Files.newBufferedReader(Path.of(filePath))) {
+            return loadCsv(reader);
+        } catch (IOException e) {
+            throw new RuntimeException("IO exception on path: " + filePath, e);
+        }
+    }
+
+    /**
+     * Loads all trains from a fleet description in the text format
+     *
+     * @param reader
+     * @return the trains in the order of the description
+     * @throws IllegalArgumentException if the description is malformed or describes an invalid train
+     */
+    public static List<Train> loadCsv(Reader reader) throws IOException {
+        BufferedReader lines = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader);
+        List<Train> trains = new ArrayList<>();
+        IntMap<Locomotive> enginesByWagonId = new IntMap<>();
+        ConsistBuilder consist = null;
+        int lineNumber = 0;
+        String line;
+        while ((line = lines.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank() || line.startsWith("#")) {
+                continue;
+            }
+            String[] fields = line.split(";");
+            try {
+                switch (fields[0].trim()) {
+                    case "L":
+                        if (consist != null) {
+                            trains.add(consist.build());
+                        }
+                        consist = new ConsistBuilder(new Train(
+                                new Locomotive(parseInt(fields[1]), parseInt(fields[2])),
+                                fields[3].trim(), fields[4].trim()), enginesByWagonId);
+                        break;
+                    case "P":
+                        requireTrain(consist).add(new PassengerWagon(parseInt(fields[1]), parseInt(fields[2])));
+                        break;
+                    case "F":
+                        requireTrain(consist).add(new FreightWagon(parseInt(fields[1]), parseInt(fields[2])));
+                        break;
+                    default:
+                        throw new IllegalArgumentException("unknown record type '" + fields[0] + "'");
+                }
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("ERROR: line " + lineNumber + ": " + e.getMessage(), e);
+            }
+        }
+        if (consist != null) {
+            try {
+                trains.add(consist.build());
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("ERROR: line " + lineNumber + ": " + e.getMessage(), e);
+            }
+        }
+        return trains;
+    }
+
+    /**
+     * Loads all trains from a fleet description binary file
+     *
+     * @param filePath
+     * @return the trains in the order of the file
+     */
+    public static List<Train> loadBinary(String filePath) {
+        try (InputStream input = Files.newInputStream(Path.of(filePath))) {
+            return loadBinary(input);
+        } catch (IOException e) {
+            throw new RuntimeException("IO exception on path: " + filePath, e);
+        }
+    }
+
+    /**
+     * Loads all trains from a fleet description in the binary format
+     *
+     * @param input
+     * @return the trains in the order of the description
+     * @throws IllegalArgumentException if the description is malformed or describes an invalid train
+     */
+    public static List<Train> loadBinary(InputStream input) throws IOException {
+        DataInputStream data = new DataInputStream(new BufferedInputStream(input, 1 << 16));
+        int magic = data.readInt();
+        if (magic != BINARY_MAGIC && magic != BINARY_MAGIC_V1) {
+            throw new IllegalArgumentException("ERROR: not a binary fleet description");
+        }
+        boolean flagged = magic == BINARY_MAGIC;
+        List<Train> trains = new ArrayList<>();
+        IntMap<Locomotive> enginesByWagonId = new IntMap<>();
+        while (true) {
+            int locNumber;
+            try {
+                locNumber = data.readInt();
+            } catch (EOFException e) {
+                return trains;
+            }
+            Locomotive engine = new Locomotive(locNumber, data.readInt());
+            String origin = readPlace(data, flagged);
+            String destination = readPlace(data, flagged);
+            ConsistBuilder consist = new ConsistBuilder(new Train(engine, origin, destination), enginesByWagonId);
+            byte kind = data.readByte();
+            int numberOfWagons = data.readInt();
+            if (kind != 'P' && kind != 'F') {
+                throw new IllegalArgumentException("ERROR: unknown wagon kind " + kind + " of " + engine);
+            }
+            try {
+                for (int i = 0; i < numberOfWagons; i++) {
+                    int wagonId = data.readInt();
+                    int value = data.readInt();
+                    consist.add(kind == 'P' ? new PassengerWagon(wagonId, value) : new FreightWagon(wagonId, value));
+                }
+                trains.add(consist.build());
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("ERROR: " + e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Writes the trains as a fleet description in the binary format
+     * Nothing is written if the trains cannot be loaded again, as a wagon id occurs more than once.
+     *
+     * @param trains
+     * @param output
+     * @throws IllegalArgumentException if a wagon id occurs more than once in the trains
+     */
+    public static void writeBinary(Collection<Train> trains, OutputStream output) throws IOException {
+        requireUniqueWagonIds(trains);
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(output, 1 << 16));
+        data.writeInt(BINARY_MAGIC);
+        for (Train train : trains) {
+            data.writeInt(train.getEngine().getLocNumber());
+            data.writeInt(train.getEngine().getMaxWagons());
+            writePlace(data, train.getOrigin());
+            writePlace(data, train.getDestination());
+            data.writeByte(train.isPassengerTrain() ? 'P' : 'F');
+            data.writeInt(train.getNumberOfWagons());
+            for (Wagon wagon = train.getFirstWagon(); wagon != null; wagon = wagon.getNextWagon()) {
+                data.writeInt(wagon.getId());
+                data.writeInt(wagon instanceof PassengerWagon
+                        ? ((PassengerWagon) wagon).getNumberOfSeats() : ((FreightWagon) wagon).getMaxWeight());
+            }
+        }
+        data.flush();
+    }
+
+    /**
+     * Verifies that every wagon id occurs only once in the trains, as in a fleet description
+     */
+    private static void requireUniqueWagonIds(Collection<Train> trains) {
+        IntMap<Locomotive> enginesByWagonId = new IntMap<>();
+        for (Train train : trains) {
+            for (Wagon wagon : train) {
+                Locomotive engine = enginesByWagonId.put(wagon.getId(), train.getEngine());
+                if (engine != null) {
+                    throw new IllegalArgumentException("ERROR: " + wagon + " of " + train.getEngine()
+                            + " also occurs with " + engine);
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes an origin or destination, which is null if the train has none
+     */
+    private static void writePlace(DataOutputStream data, String place) throws IOException {
+        data.writeBoolean(place != null);
+        if (place != null) {
+            data.writeUTF(place);
+        }
+    }
+
+    private static String readPlace(DataInputStream data, boolean flagged) throws IOException {
+        return !flagged || data.readBoolean() ? data.readUTF() : null;
+    }
+
+    private static int parseInt(String field) {
+        return Integer.parseInt(field.trim());
+    }
+
+    private static ConsistBuilder requireTrain(ConsistBuilder consist) {
+        if (consist == null) {
+            throw new IllegalArgumentException("wagon record before the first train record");
+        }
+        return consist;
+    }
+
+    /**
+     * Links the wagons of a train as they are read, and attaches them to the train when complete
+     */
+    private static class ConsistBuilder {
+        private final Train train;
+        // the engines of the trains of all wagons loaded so far, by wagon id, shared by all trains of the fleet
+        private final IntMap<Locomotive> enginesByWagonId;
+        private Wagon firstWagon;
+        private Wagon lastWagon;
+        private int numberOfWagons;
+
+        ConsistBuilder(Train train, IntMap<Locomotive> enginesByWagonId) {
+            this.train = train;
+            this.enginesByWagonId = enginesByWagonId;
+        }
+
+        void add(Wagon wagon) {
+            Locomotive engine = enginesByWagonId.put(wagon.getId(), train.getEngine());
+            if (engine != null) {
+                throw new IllegalArgumentException(wagon + " of " + train.getEngine()
+                        + " has already been loaded with " + engine);
+            }
+            if (firstWagon == null) {
+                firstWagon = wagon;
+            } else if (wagon.getClass() != firstWagon.getClass()) {
+                throw new IllegalArgumentException(wagon + " does not match the other wagons of "
+                        + train.getEngine());
+            } else {
+                lastWagon.attachTail(wagon);
+            }
+            lastWagon = wagon;
+            numberOfWagons++;
+        }
+
+        Train build() {
+            if (numberOfWagons > train.getEngine().getMaxWagons()) {
+                throw new IllegalArgumentException(train.getEngine() + " cannot pull "
+                        + numberOfWagons + " wagons");
+            }
+            train.setFirstWagon(firstWagon);
+            return train;
+        }
+    }
+}
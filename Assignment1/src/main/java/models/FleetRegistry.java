@@ -0,0 +1,302 @@
+package models;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Collectors;
+
+/**
+ * A registry of a fleet of trains, that indexes every train by the number of its locomotive
+ * and every wagon by its id, to find the train that holds a wagon in constant time.
+ * The registry listens to the reconfigurations of its trains to keep the index of wagons up to date,
+ * also when wagons move between trains.
+ * All trains that exchange wagons with trains in the registry should be registered as well.
+ * If the trains are reconfigured concurrently in a MarshallingYard, the registry should be given that yard,
+ * so it holds the lock of a train of the yard while it starts or stops listening to the train and indexes its wagons.
+ * The wagons are indexed in a concurrent map, so the registry follows reconfigurations of different trains
+ * without making them wait for each other.
+ * <p>
+ * The fleet-wide totals are aggregated in parallel from the running totals of the trains,
+ * on the common fork-join pool. They describe a consistent state of the fleet
+ * only while no trains are being reconfigured.
+ */
+public class FleetRegistry implements TrainListener {
+    private final ConcurrentMap<Integer, Train> trains = new ConcurrentHashMap<>();
+
+    // the train that holds each wagon, in a concurrent map as trains may be reconfigured concurrently
+    // (e.g. in a MarshallingYard), such that reconfigurations of different trains do not wait for each other
+    private final ConcurrentMap<Integer, Train> trainsByWagonId = new ConcurrentHashMap<>();
+
+    // the yard whose locks guard the trains against concurrent reconfigurations, or null if there is none
+    private final MarshallingYard yard;
+
+    /* Representation invariants:
+        trains maps the locNumber of every registered train to the train
+        this registry listens to exactly the registered trains
+        trainsByWagonId maps the id of every wagon of a registered train to that train
+     */
+
+    /**
+     * The totals of all trains that run on the same route
+     */
+    public static class RouteTotals {
+        private final String origin;
+        private final String destination;
+        private final int numberOfTrains;
+        private final long numberOfWagons;
+        private final long capacity;
+        private final long totalNumberOfSeats;
+        private final long totalMaxWeight;
+
+        private RouteTotals(String origin, String destination, int numberOfTrains, long numberOfWagons,
+                            long capacity, long totalNumberOfSeats, long totalMaxWeight) {
+            this.origin = origin;
+            this.destination = destination;
+            this.numberOfTrains = numberOfTrains;
+            this.numberOfWagons = numberOfWagons;
+            this.capacity = capacity;
+            this.totalNumberOfSeats = totalNumberOfSeats;
+            this.totalMaxWeight = totalMaxWeight;
+        }
+
+        private static RouteTotals of(Train train) {
+            return new RouteTotals(train.getOrigin(), train.getDestination(), 1, train.getNumberOfWagons(),
+                    train.getEngine().getMaxWagons(), train.getTotalNumberOfSeats(), train.getTotalMaxWeight());
+        }
+
+        private RouteTotals plus(RouteTotals other) {
+            return new RouteTotals(origin, destination, numberOfTrains + other.numberOfTrains,
+                    numberOfWagons + other.numberOfWagons, capacity + other.capacity,
+                    totalNumberOfSeats + other.totalNumberOfSeats, totalMaxWeight + other.totalMaxWeight);
+        }
+
+        public String getOrigin() {
+            return origin;
+        }
+
+        public String getDestination() {
+            return destination;
+        }
+
+        public int getNumberOfTrains() {
+            return numberOfTrains;
+        }
+
+        public long getNumberOfWagons() {
+            return numberOfWagons;
+        }
+
+        /**
+         * @return the total number of wagons that the locomotives on the route can pull
+         */
+        public long getCapacity() {
+            return capacity;
+        }
+
+        public long getTotalNumberOfSeats() {
+            return totalNumberOfSeats;
+        }
+
+        public long getTotalMaxWeight() {
+            return totalMaxWeight;
+        }
+
+        /**
+         * @return the fraction of the capacity of the locomotives on the route that is in use
+         */
+        public double getUtilisation() {
+            return capacity == 0 ? 0.0 : (double) numberOfWagons / capacity;
+        }
+
+        @Override
+        public String toString() {
+            return "[Route " + origin + " to " + destination + " with " + numberOfTrains + " trains and "
+                    + numberOfWagons + " of " + capacity + " wagons]";
+        }
+    }
+
+    public FleetRegistry() {
+        this(null);
+    }
+
+    /**
+     * @param yard the yard in which the trains of the registry may be reconfigured concurrently
+     */
+    public FleetRegistry(MarshallingYard yard) {
+        this.yard = yard;
+    }
+
+    /**
+     * Registers the train and all its wagons
+     *
+     * @param train
+     * @return whether the train could be registered
+     * (return false if the registry already holds a train with the same locomotive number)
+     */
+    public boolean addTrain(Train train) {
+        if (trains.putIfAbsent(train.getEngine().getLocNumber(), train) != null) {
+            return false;
+        }
+        withLockOf(train, () -> {
+            // the registry listens before it indexes, so no reconfiguration can go unnoticed
+            train.addListener(this);
+            for (Wagon wagon : train) {
+                trainsByWagonId.put(wagon.getId(), train);
+            }
+        });
+        return true;
+    }
+
+    /**
+     * Removes the train with the given locomotive number and all its wagons from the registry
+     *
+     * @param locNumber
+     * @return the removed train, or null if the registry holds no such train
+     */
+    public Train removeTrain(int locNumber) {
+        Train train = trains.remove(locNumber);
+        if (train != null) {
+            withLockOf(train, () -> {
+                train.removeListener(this);
+                for (Wagon wagon : train) {
+                    unindex(wagon, train);
+                }
+            });
+        }
+        return train;
+    }
+
+    /**
+     * Runs the action while holding the lock of the train in the yard, if the train is in the yard,
+     * such that the train cannot be reconfigured while the action runs
+     */
+    private void withLockOf(Train train, Runnable action) {
+        Boolean guarded = yard == null ? null : yard.withTrain(train.getEngine().getLocNumber(), yardTrain -> {
+            if (yardTrain != train) {
+                return false;
+            }
+            action.run();
+            return true;
+        });
+        if (guarded == null || !guarded) {
+            action.run();
+        }
+    }
+
+    /**
+     * @param locNumber
+     * @return the registered train with the given locomotive number, or null if there is no such train
+     */
+    public Train getTrain(int locNumber) {
+        return trains.get(locNumber);
+    }
+
+    /**
+     * Finds the registered train that holds the wagon with the given wagonId
+     *
+     * @param wagonId
+     * @return the train found
+     * (return null if no registered train holds a wagon with the given wagonId)
+     */
+    public Train findTrainOfWagon(int wagonId) {
+        return trainsByWagonId.get(wagonId);
+    }
+
+    public int getNumberOfTrains() {
+        return trains.size();
+    }
+
+    /**
+     * @return the total number of seats of all passenger trains in the fleet
+     */
+    public long getTotalNumberOfSeats() {
+        return trains.values().parallelStream().mapToLong(Train::getTotalNumberOfSeats).sum();
+    }
+
+    /**
+     * @return the total maximum weight of all freight trains in the fleet
+     */
+    public long getTotalMaxWeight() {
+        return trains.values().parallelStream().mapToLong(Train::getTotalMaxWeight).sum();
+    }
+
+    /**
+     * Aggregates the totals of all trains per route from origin to destination
+     * Trains without an origin or destination are aggregated on a route to or from null.
+     *
+     * @return the totals of every route, ordered by origin and destination, with null before any other place
+     */
+    public List<RouteTotals> getTotalsPerRoute() {
+        List<RouteTotals> routes = new ArrayList<>(trains.values().parallelStream()
+                .collect(Collectors.toConcurrentMap(
+                        // unlike List.of, Arrays.asList accepts a missing origin or destination
+                        train -> Arrays.asList(train.getOrigin(), train.getDestination()),
+                        RouteTotals::of,
+                        RouteTotals::plus))
+                .values());
+        Comparator<String> places = Comparator.nullsFirst(Comparator.naturalOrder());
+        routes.sort(Comparator.comparing(RouteTotals::getOrigin, places)
+                .thenComparing(RouteTotals::getDestination, places));
+        return routes;
+    }
+
+    @Override
+    public void onSetFirstWagon(Train train, Wagon wagon) {
+        for (Wagon removed : train) {
+            unindex(removed, train);
+        }
+        index(wagon, train);
+    }
+
+    @Override
+    public void onAttachToRear(Train train, Wagon wagon) {
+        index(wagon, train);
+    }
+
+    @Override
+    public void onInsertAtFront(Train train, Wagon wagon) {
+        index(wagon, train);
+    }
+
+    @Override
+    public void onInsertAtPosition(Train train, int position, Wagon wagon) {
+        index(wagon, train);
+    }
+
+    @Override
+    public void onMoveOneWagon(Train fromTrain, Wagon wagon, Train toTrain) {
+        unindex(wagon, fromTrain);
+        indexOne(wagon, toTrain);
+    }
+
+    @Override
+    public void onSplitAtPosition(Train fromTrain, int position, Train toTrain) {
+        for (Wagon wagon = fromTrain.findWagonAtPosition(position); wagon != null; wagon = wagon.getNextWagon()) {
+            unindex(wagon, fromTrain);
+            indexOne(wagon, toTrain);
+        }
+    }
+
+    /**
+     * Indexes the sequence of wagons from the given wagon as wagons of the given train
+     */
+    private void index(Wagon wagon, Train train) {
+        for (; wagon != null; wagon = wagon.getNextWagon()) {
+            indexOne(wagon, train);
+        }
+    }
+
+    private void indexOne(Wagon wagon, Train train) {
+        if (trains.get(train.getEngine().getLocNumber()) == train) {
+            trainsByWagonId.put(wagon.getId(), train);
+        }
+    }
+
+    private void unindex(Wagon wagon, Train train) {
+        // a wagon that has been indexed for another train by now is left alone
+        trainsByWagonId.remove(wagon.getId(), train);
+    }
+}
@@ -0,0 +1,141 @@
+package models;
+
+import java.util.Arrays;
+
+/**
+ * A hash map from primitive int keys to values, using open addressing with linear probing.
+ * Avoids the boxing of keys into Integer objects that a java.util.HashMap would need.
+ *
+ * @param <V> the type of the values, which cannot be null
+ */
+class IntMap<V> {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private int[] keys;
+    private Object[] values;        // values[i] == null marks an empty slot
+    private int size;
+
+    /* Representation invariants:
+        keys.length == values.length is a power of two
+        size < keys.length / 2
+        every key can be found by probing linearly from its home slot without crossing an empty slot
+     */
+
+    IntMap() {
+        keys = new int[INITIAL_CAPACITY];
+        values = new Object[INITIAL_CAPACITY];
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * @param key
+     * @return the value associated with the key, or null if the key is not in the map
+     */
+    @SuppressWarnings("unchecked")
+    V get(int key) {
+        int mask = keys.length - 1;
+        for (int slot = homeSlot(key, mask); values[slot] != null; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                return (V) values[slot];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Associates the value with the key, replacing any former value
+     *
+     * @param key
+     * @param value the value, which cannot be null
+     * @return the former value associated with the key, or null if there was none
+     */
+    @SuppressWarnings("unchecked")
+    V put(int key, V value) {
+        if (value == null) {
+            throw new IllegalArgumentException("ERROR: IntMap cannot hold null values");
+        }
+        int mask = keys.length - 1;
+        int slot = homeSlot(key, mask);
+        while (values[slot] != null) {
+            if (keys[slot] == key) {
+                V former = (V) values[slot];
+                values[slot] = value;
+                return former;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        if (++size >= keys.length / 2) {
+            resize(keys.length * 2);
+        }
+        return null;
+    }
+
+    /**
+     * Removes the key from the map, shifting back any colliding entries into the freed slot
+     *
+     * @param key
+     * @return the value that was associated with the key, or null if the key was not in the map
+     */
+    @SuppressWarnings("unchecked")
+    V remove(int key) {
+        int mask = keys.length - 1;
+        int slot = homeSlot(key, mask);
+        while (values[slot] != null && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        if (values[slot] == null) {
+            return null;
+        }
+        V former = (V) values[slot];
+
+        // shift back entries of the probe sequence that would otherwise become unreachable
+        int free = slot;
+        for (int next = (free + 1) & mask; values[next] != null; next = (next + 1) & mask) {
+            int home = homeSlot(keys[next], mask);
+            if (((next - home) & mask) >= ((next - free) & mask)) {
+                keys[free] = keys[next];
+                values[free] = values[next];
+                free = next;
+            }
+        }
+        values[free] = null;
+        size--;
+        return former;
+    }
+
+    void clear() {
+        if (size > 0) {
+            Arrays.fill(values, null);
+            size = 0;
+        }
+    }
+
+    private void resize(int capacity) {
+        int[] oldKeys = keys;
+        Object[] oldValues = values;
+        keys = new int[capacity];
+        values = new Object[capacity];
+        int mask = capacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldValues[i] != null) {
+                int slot = homeSlot(oldKeys[i], mask);
+                while (values[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private static int homeSlot(int key, int mask) {
+        // spread the bits of sequential wagon ids over the table
+        int h = key * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+}
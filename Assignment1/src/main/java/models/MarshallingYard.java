@@ -0,0 +1,158 @@
+package models;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * A thread-safe marshalling yard that holds many trains, identified by the number of their locomotive.
+ * Worker threads can reconfigure pairs of trains concurrently.
+ * Every train is guarded by its own lock; operations on two trains acquire both locks
+ * in ascending order of locomotive number, so concurrent operations can never deadlock,
+ * and operations on independent pairs of trains proceed in parallel.
+ * <p>
+ * Trains that have been added to the yard should only be accessed through the yard.
+ */
+public class MarshallingYard {
+    private final ConcurrentMap<Integer, Track> tracks = new ConcurrentHashMap<>();
+
+    /**
+     * A train in the yard, with the lock that guards it
+     */
+    private static class Track {
+        final Train train;
+        final ReentrantLock lock = new ReentrantLock();
+
+        Track(Train train) {
+            this.train = train;
+        }
+
+        int getLocNumber() {
+            return train.getEngine().getLocNumber();
+        }
+    }
+
+    /**
+     * Adds the train to the yard
+     *
+     * @param train
+     * @return whether the train could be added
+     * (return false if the yard already holds a train with the same locomotive number)
+     */
+    public boolean addTrain(Train train) {
+        return tracks.putIfAbsent(train.getEngine().getLocNumber(), new Track(train)) == null;
+    }
+
+    /**
+     * Removes the train with the given locomotive number from the yard,
+     * after any operation in progress on the train has completed
+     *
+     * @param locNumber
+     * @return the removed train, or null if the yard holds no such train
+     */
+    public Train removeTrain(int locNumber) {
+        Track track = tracks.get(locNumber);
+        if (track == null) {
+            return null;
+        }
+        track.lock.lock();
+        try {
+            return tracks.remove(locNumber, track) ? track.train : null;
+        } finally {
+            track.lock.unlock();
+        }
+    }
+
+    public boolean hasTrain(int locNumber) {
+        return tracks.containsKey(locNumber);
+    }
+
+    public int getNumberOfTrains() {
+        return tracks.size();
+    }
+
+    /**
+     * Moves one wagon with the given wagonId from one train in the yard to the rear of another
+     *
+     * @param fromLocNumber the locomotive number of the train that holds the wagon
+     * @param wagonId
+     * @param toLocNumber   the locomotive number of the train that receives the wagon
+     * @return whether the move could be completed successfully
+     * (return false if either train is not in the yard)
+     */
+    public boolean moveOneWagon(int fromLocNumber, int wagonId, int toLocNumber) {
+        return withTrains(fromLocNumber, toLocNumber, (from, to) -> from.moveOneWagon(wagonId, to));
+    }
+
+    /**
+     * Splits one train in the yard before the given position
+     * and moves the wagons from there to the rear of another train
+     *
+     * @param fromLocNumber the locomotive number of the train that is split
+     * @param position
+     * @param toLocNumber   the locomotive number of the train that receives the wagons
+     * @return whether the split could be completed successfully
+     * (return false if either train is not in the yard)
+     */
+    public boolean splitAtPosition(int fromLocNumber, int position, int toLocNumber) {
+        return withTrains(fromLocNumber, toLocNumber, (from, to) -> from.splitAtPosition(position, to));
+    }
+
+    /**
+     * Applies the given function to the train with the given locomotive number,
+     * while no other thread can access the train
+     *
+     * @param locNumber
+     * @param function
+     * @return the result of the function, or null if the yard holds no such train
+     */
+    public <R> R withTrain(int locNumber, Function<Train, R> function) {
+        Track track = tracks.get(locNumber);
+        if (track == null) {
+            return null;
+        }
+        track.lock.lock();
+        try {
+            return tracks.get(locNumber) == track ? function.apply(track.train) : null;
+        } finally {
+            track.lock.unlock();
+        }
+    }
+
+    /**
+     * An operation on a pair of trains
+     */
+    private interface PairOperation {
+        boolean apply(Train from, Train to);
+    }
+
+    /**
+     * Applies the operation to both trains while holding both of their locks,
+     * which are acquired in ascending order of locomotive number
+     */
+    private boolean withTrains(int fromLocNumber, int toLocNumber, PairOperation operation) {
+        Track from = tracks.get(fromLocNumber);
+        Track to = tracks.get(toLocNumber);
+        if (from == null || to == null) {
+            return false;
+        }
+        Track first = from.getLocNumber() <= to.getLocNumber() ? from : to;
+        Track second = first == from ? to : from;
+        first.lock.lock();
+        try {
+            second.lock.lock();
+            try {
+                // either train may have been removed while waiting for its lock
+                if (tracks.get(fromLocNumber) != from || tracks.get(toLocNumber) != to) {
+                    return false;
+                }
+                return operation.apply(from.train, to.train);
+            } finally {
+                second.lock.unlock();
+            }
+        } finally {
+            first.lock.unlock();
+        }
+    }
+}
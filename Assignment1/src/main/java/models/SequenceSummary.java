@@ -0,0 +1,157 @@
+package models;
+
+/**
+ * A summary header of a sequence of wagons, with its length and cumulative properties.
+ * All wagons of the sequence refer to the same header, so the header can be invalidated
+ * in constant time from any wagon of which the connections change.
+ * Attaching or detaching a single wagon at either end of the sequence updates the header
+ * in constant time instead. Detaching a tail elsewhere in the sequence keeps the header with the longer part,
+ * and builds a new header for the shorter part, in time proportional to the shorter part.
+ * Other reconfigurations invalidate the header, and a new header is built on demand by Wagon.getSequenceSummary().
+ */
+public class SequenceSummary {
+    private Wagon firstWagon;
+    private Wagon lastWagon;
+    private int numberOfWagons;
+    private int totalNumberOfSeats;
+    private int totalMaxWeight;
+    private boolean valid = true;
+
+    /* Representation invariants:
+        !valid || (firstWagon.previousWagon == null && lastWagon.nextWagon == null
+                    && lastWagon == firstWagon.getLastWagonAttached()
+                    && numberOfWagons == firstWagon.getTailLength() + 1
+                    && totals are the sums over all passenger and freight wagons from firstWagon to lastWagon)
+     */
+
+    /**
+     * Summarizes the sequence of wagons from the given wagon until its final successor
+     *
+     * @param firstWagon
+     */
+    SequenceSummary(Wagon firstWagon) {
+        this.firstWagon = firstWagon;
+        for (Wagon wagon = firstWagon; wagon != null; wagon = wagon.getNextWagon()) {
+            add(wagon, 1);
+            lastWagon = wagon;
+        }
+    }
+
+    public Wagon getFirstWagon() {
+        return firstWagon;
+    }
+
+    public Wagon getLastWagon() {
+        return lastWagon;
+    }
+
+    public int getNumberOfWagons() {
+        return numberOfWagons;
+    }
+
+    /**
+     * @return the total number of seats of all passenger wagons in the sequence
+     */
+    public int getTotalNumberOfSeats() {
+        return totalNumberOfSeats;
+    }
+
+    /**
+     * @return the total maximum weight of all freight wagons in the sequence
+     */
+    public int getTotalMaxWeight() {
+        return totalMaxWeight;
+    }
+
+    /**
+     * @return whether the sequence is a sequence of passenger wagons
+     */
+    public boolean isPassengerSequence() {
+        return firstWagon instanceof PassengerWagon;
+    }
+
+    /**
+     * @return whether the sequence is a sequence of freight wagons
+     */
+    public boolean isFreightSequence() {
+        return firstWagon instanceof FreightWagon;
+    }
+
+    /**
+     * @return whether the summary still describes the sequence
+     */
+    public boolean isValid() {
+        return valid;
+    }
+
+    void invalidate() {
+        valid = false;
+    }
+
+    /**
+     * Updates the summary after a single wagon has been attached behind the last wagon
+     */
+    void append(Wagon wagon) {
+        add(wagon, 1);
+        lastWagon = wagon;
+    }
+
+    /**
+     * Updates the summary after a single wagon has been attached in front of the first wagon
+     */
+    void prepend(Wagon wagon) {
+        add(wagon, 1);
+        firstWagon = wagon;
+    }
+
+    /**
+     * Updates the summary after the first wagon has been detached from the sequence
+     *
+     * @param newFirstWagon the former second wagon of the sequence
+     */
+    void removeFirst(Wagon newFirstWagon) {
+        add(firstWagon, -1);
+        firstWagon = newFirstWagon;
+    }
+
+    /**
+     * Updates the summary after the last wagon has been detached from the sequence
+     *
+     * @param newLastWagon the former second last wagon of the sequence
+     */
+    void removeLast(Wagon newLastWagon) {
+        add(lastWagon, -1);
+        lastWagon = newLastWagon;
+    }
+
+    /**
+     * Updates the summary after the sequence has been split in two parts, of which the given part is detached
+     *
+     * @param part   the summary of the detached part, at the front or at the rear of the sequence
+     * @param newEnd the wagon at the end of the remaining part where the detached part was attached
+     */
+    void removePart(SequenceSummary part, Wagon newEnd) {
+        numberOfWagons -= part.numberOfWagons;
+        totalNumberOfSeats -= part.totalNumberOfSeats;
+        totalMaxWeight -= part.totalMaxWeight;
+        if (part.firstWagon == firstWagon) {
+            firstWagon = newEnd;
+        } else {
+            lastWagon = newEnd;
+        }
+    }
+
+    private void add(Wagon wagon, int sign) {
+        numberOfWagons += sign;
+        if (wagon instanceof PassengerWagon) {
+            totalNumberOfSeats += sign * ((PassengerWagon) wagon).getNumberOfSeats();
+        } else if (wagon instanceof FreightWagon) {
+            totalMaxWeight += sign * ((FreightWagon) wagon).getMaxWeight();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "[Sequence of " + numberOfWagons + " wagons from " + firstWagon + " to " + lastWagon + ']';
+    }
+}
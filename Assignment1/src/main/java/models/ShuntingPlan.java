@@ -0,0 +1,416 @@
+package models;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An ordered batch of reconfigurations of one or more trains, that is applied as a whole or not at all.
+ * <p>
+ * Before any train is changed, the plan is validated once against the projected number of wagons
+ * and the projected type of wagons of every train involved, as they will be after each step.
+ * Then all steps are applied in a single pass, while every completed step logs how it can be undone.
+ * If a step still fails while it is applied (e.g. when a position turns out not to be valid),
+ * the completed steps are undone in reverse order, which restores all trains and loose sequences of wagons
+ * involved in the plan to their original configuration. A step that fails makes no change itself,
+ * as the operations of a train make no change when they cannot be completed.
+ */
+public class ShuntingPlan {
+    private final List<Step> steps = new ArrayList<>();
+
+    /**
+     * A single reconfiguration in the plan
+     */
+    private interface Step {
+        /**
+         * Applies the step to the projected state of the trains
+         *
+         * @return whether the step can be made in the projected state
+         */
+        boolean project(Projection projection);
+
+        /**
+         * Applies the step to the trains, and logs how it can be undone if it has been completed
+         *
+         * @return whether the step could be completed successfully on the trains
+         */
+        boolean apply(UndoLog undoLog);
+    }
+
+    /**
+     * Adds a step to attach the given sequence of wagons to the rear of the train
+     *
+     * @param train
+     * @param wagon the first wagon of a sequence of wagons to be attached
+     */
+    public void attachToRear(Train train, Wagon wagon) {
+        steps.add(new Step() {
+            public boolean project(Projection projection) {
+                return projection.attach(train, wagon);
+            }
+
+            public boolean apply(UndoLog undoLog) {
+                int numberOfWagons = train.getNumberOfWagons();
+                if (!train.attachToRear(wagon)) {
+                    return false;
+                }
+                undoLog.detachAfterwards(train, numberOfWagons + 1, train.getNumberOfWagons() - numberOfWagons);
+                return true;
+            }
+        });
+    }
+
+    /**
+     * Adds a step to insert the given sequence of wagons at the front of the train
+     *
+     * @param train
+     * @param wagon the first wagon of a sequence of wagons to be attached
+     */
+    public void insertAtFront(Train train, Wagon wagon) {
+        steps.add(new Step() {
+            public boolean project(Projection projection) {
+                return projection.attach(train, wagon);
+            }
+
+            public boolean apply(UndoLog undoLog) {
+                int numberOfWagons = train.getNumberOfWagons();
+                if (!train.insertAtFront(wagon)) {
+                    return false;
+                }
+                undoLog.detachAfterwards(train, 1, train.getNumberOfWagons() - numberOfWagons);
+                return true;
+            }
+        });
+    }
+
+    /**
+     * Adds a step to insert the given sequence of wagons at/before the given wagon position in the train
+     *
+     * @param train
+     * @param position
+     * @param wagon    the first wagon of a sequence of wagons to be attached
+     */
+    public void insertAtPosition(Train train, int position, Wagon wagon) {
+        steps.add(new Step() {
+            public boolean project(Projection projection) {
+                return position >= 1 && position <= Math.max(1, projection.of(train).numberOfWagons)
+                        && projection.attach(train, wagon);
+            }
+
+            public boolean apply(UndoLog undoLog) {
+                int numberOfWagons = train.getNumberOfWagons();
+                if (!train.insertAtPosition(position, wagon)) {
+                    return false;
+                }
+                undoLog.detachAfterwards(train, position, train.getNumberOfWagons() - numberOfWagons);
+                return true;
+            }
+        });
+    }
+
+    /**
+     * Adds a step to move one wagon with the given wagonId from fromTrain to the rear of toTrain
+     *
+     * @param fromTrain
+     * @param wagonId
+     * @param toTrain
+     */
+    public void moveOneWagon(Train fromTrain, int wagonId, Train toTrain) {
+        steps.add(new Step() {
+            public boolean project(Projection projection) {
+                return projection.move(fromTrain, wagonId, toTrain);
+            }
+
+            public boolean apply(UndoLog undoLog) {
+                Wagon wagon = fromTrain.findWagonById(wagonId);
+                // the wagon returns to the position it had before it was moved
+                int position = wagon == null ? 0 : fromTrain.positionOf(wagon);
+                if (!fromTrain.moveOneWagon(wagonId, toTrain)) {
+                    return false;
+                }
+                undoLog.add(() -> UndoLog.insert(fromTrain, position,
+                        UndoLog.detach(toTrain, toTrain.getNumberOfWagons(), 1)));
+                return true;
+            }
+        });
+    }
+
+    /**
+     * Adds a step to split fromTrain before the given position and move the wagons from there
+     * to the rear of toTrain
+     *
+     * @param fromTrain
+     * @param position
+     * @param toTrain
+     */
+    public void splitAtPosition(Train fromTrain, int position, Train toTrain) {
+        steps.add(new Step() {
+            public boolean project(Projection projection) {
+                return projection.split(fromTrain, position, toTrain);
+            }
+
+            public boolean apply(UndoLog undoLog) {
+                int numberOfWagons = toTrain.getNumberOfWagons();
+                if (!fromTrain.splitAtPosition(position, toTrain)) {
+                    return false;
+                }
+                // the split wagons came from the rear of fromTrain
+                undoLog.add(() -> toTrain.splitAtPosition(numberOfWagons + 1, fromTrain));
+                return true;
+            }
+        });
+    }
+
+    /**
+     * Adds a step to reverse the sequence of wagons in the train
+     *
+     * @param train
+     */
+    public void reverse(Train train) {
+        steps.add(new Step() {
+            public boolean project(Projection projection) {
+                return true;
+            }
+
+            public boolean apply(UndoLog undoLog) {
+                train.reverse();
+                undoLog.add(train::reverse);
+                return true;
+            }
+        });
+    }
+
+    public int getNumberOfSteps() {
+        return steps.size();
+    }
+
+    /**
+     * Validates all steps of the plan against the projected capacity and type of wagons
+     * of the trains involved, without changing any train
+     *
+     * @return whether all steps can be made
+     */
+    public boolean isValid() {
+        Projection projection = new Projection();
+        for (Step step : steps) {
+            if (!step.project(projection)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Applies all steps of the plan in order, or none at all
+     * No change is made if the plan is not valid, or if any of its steps fails or throws an exception.
+     *
+     * @return whether the plan could be completed successfully
+     */
+    public boolean apply() {
+        if (!isValid()) {
+            return false;
+        }
+        UndoLog undoLog = new UndoLog();
+        boolean completed = false;
+        try {
+            for (Step step : steps) {
+                if (!step.apply(undoLog)) {
+                    return false;
+                }
+            }
+            completed = true;
+            return true;
+        } finally {
+            if (!completed) {
+                undoLog.undo();
+            }
+        }
+    }
+
+    /**
+     * The projected number and type of wagons of a train, after the steps projected so far
+     */
+    private static class ProjectedTrain {
+        int numberOfWagons;
+        Class<?> kind;      // the class of the wagons, or null if the train has no wagons
+    }
+
+    /**
+     * The projected state of all trains involved in the steps projected so far
+     */
+    private static class Projection {
+        private final Map<Train, ProjectedTrain> trains = new IdentityHashMap<>();
+        // the wagons that have been moved by the steps projected so far, by their id
+        private final Map<Integer, Wagon> movedWagons = new HashMap<>();
+        private final Map<Integer, Train> movedTo = new HashMap<>();
+
+        ProjectedTrain of(Train train) {
+            return trains.computeIfAbsent(train, t -> {
+                ProjectedTrain projected = new ProjectedTrain();
+                projected.numberOfWagons = t.getNumberOfWagons();
+                projected.kind = t.isPassengerTrain() ? PassengerWagon.class
+                        : t.isFreightTrain() ? FreightWagon.class : null;
+                return projected;
+            });
+        }
+
+        boolean canAttach(Train train, Class<?> kind, int numberOfWagons) {
+            ProjectedTrain projected = of(train);
+            return (projected.kind == null || projected.kind == kind)
+                    && train.getEngine().getMaxWagons() >= projected.numberOfWagons + numberOfWagons;
+        }
+
+        void add(Train train, Class<?> kind, int numberOfWagons) {
+            ProjectedTrain projected = of(train);
+            projected.numberOfWagons += numberOfWagons;
+            if (projected.numberOfWagons > 0) {
+                projected.kind = kind;
+            }
+        }
+
+        void remove(Train train, int numberOfWagons) {
+            ProjectedTrain projected = of(train);
+            projected.numberOfWagons -= numberOfWagons;
+            if (projected.numberOfWagons == 0) {
+                projected.kind = null;
+            }
+        }
+
+        boolean attach(Train train, Wagon wagon) {
+            if (wagon == null || wagon.hasPreviousWagon()) {
+                return false;
+            }
+            int numberOfWagons = wagon.getSequenceSummary().getNumberOfWagons();
+            if (!canAttach(train, wagon.getClass(), numberOfWagons)) {
+                return false;
+            }
+            add(train, wagon.getClass(), numberOfWagons);
+            return true;
+        }
+
+        boolean move(Train fromTrain, int wagonId, Train toTrain) {
+            Wagon wagon = movedWagons.get(wagonId);
+            if (wagon != null && movedTo.get(wagonId) != fromTrain) {
+                return false;
+            }
+            if (wagon == null) {
+                wagon = findWagon(fromTrain, wagonId);
+            }
+            if (wagon == null || of(fromTrain).numberOfWagons == 0 || !canAttach(toTrain, wagon.getClass(), 1)) {
+                return false;
+            }
+            remove(fromTrain, 1);
+            add(toTrain, wagon.getClass(), 1);
+            movedWagons.put(wagonId, wagon);
+            movedTo.put(wagonId, toTrain);
+            return true;
+        }
+
+        boolean split(Train fromTrain, int position, Train toTrain) {
+            ProjectedTrain from = of(fromTrain);
+            if (position <= 0 || position > from.numberOfWagons) {
+                return false;
+            }
+            Class<?> kind = from.kind;
+            int numberOfWagons = from.numberOfWagons - position + 1;
+            if (!canAttach(toTrain, kind, numberOfWagons)) {
+                return false;
+            }
+            remove(fromTrain, numberOfWagons);
+            add(toTrain, kind, numberOfWagons);
+            return true;
+        }
+
+        /**
+         * Finds a wagon that has not been moved individually yet,
+         * on the given train or on any other train involved so far,
+         * as earlier splits may have brought it to the given train.
+         * Wagons are found by their id only, which does not relink any reversed train.
+         */
+        private Wagon findWagon(Train train, int wagonId) {
+            Wagon wagon = train.findWagonById(wagonId);
+            for (Train other : trains.keySet()) {
+                if (wagon != null) {
+                    break;
+                }
+                wagon = other.findWagonById(wagonId);
+            }
+            return wagon;
+        }
+    }
+
+    /**
+     * The inverse operations of the steps that have been completed, by which they are undone in reverse order.
+     * Logging a step takes constant time, however long the trains are, as nothing is copied,
+     * except for a move of one wagon, which logs the position the wagon is moved from.
+     * That position is found with the positional index of the train, if in use,
+     * or else by walking from the wagon to the nearest end of the train.
+     * Undoing a step takes the time of an insertion or split at its logged position.
+     */
+    private static class UndoLog {
+        private final Deque<Runnable> operations = new ArrayDeque<>();
+
+        void add(Runnable operation) {
+            operations.push(operation);
+        }
+
+        /**
+         * Logs that the given number of wagons from the given position in the train
+         * are to be detached again as a loose sequence
+         */
+        void detachAfterwards(Train train, int position, int numberOfWagons) {
+            add(() -> detach(train, position, numberOfWagons));
+        }
+
+        /**
+         * Undoes all logged operations, the last one first
+         */
+        void undo() {
+            while (!operations.isEmpty()) {
+                operations.pop().run();
+            }
+        }
+
+        /**
+         * Detaches the given number of wagons from the given position in the train,
+         * and leaves them in their order as a loose sequence
+         *
+         * @return the first wagon of the loose sequence
+         */
+        static Wagon detach(Train train, int position, int numberOfWagons) {
+            // a train without a route that can hold any sequence, from which the sequence is released
+            Train holder = new Train(new Locomotive(0, Integer.MAX_VALUE), null, null);
+            if (position + numberOfWagons > train.getNumberOfWagons()) {
+                train.splitAtPosition(position, holder);
+            } else {
+                int[] wagonIds = new int[numberOfWagons];
+                Wagon wagon = train.findWagonAtPosition(position);
+                for (int i = 0; i < numberOfWagons; i++, wagon = wagon.getNextWagon()) {
+                    wagonIds[i] = wagon.getId();
+                }
+                for (int wagonId : wagonIds) {
+                    train.moveOneWagon(wagonId, holder);
+                }
+            }
+            Wagon wagon = holder.getFirstWagon();
+            holder.setFirstWagon(null);
+            return wagon;
+        }
+
+        /**
+         * Inserts a loose sequence of wagons at the given position in the train,
+         * which may be the position behind its last wagon
+         */
+        static void insert(Train train, int position, Wagon wagon) {
+            if (position > train.getNumberOfWagons()) {
+                train.attachToRear(wagon);
+            } else {
+                train.insertAtPosition(position, wagon);
+            }
+        }
+    }
+}
@@ -1,14 +1,57 @@
 package models;
 
-public class Train {
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+public class Train implements Iterable<Wagon> {
+    // the minimum number of wagons in each half of a split of the wagons for parallel processing
+    private static final int MIN_SPLIT_SIZE = 1 << 10;
+
+
     private String origin;
     private String destination;
     private Locomotive engine;
     private Wagon firstWagon;
 
+    // running aggregates of the current sequence of wagons,
+    // updated incrementally by every reconfiguration of the train
+    private Wagon lastWagon;
+    private int numberOfWagons;
+    private int totalNumberOfSeats;
+    private int totalMaxWeight;
+
+    // index of all wagons in the train by their id
+    private final IntMap<Wagon> wagonsById = new IntMap<>();
+
+    // optional index of all wagons in the train by their position, null if not in use
+    private WagonRope positions;
+
+    // whether the order of the train is the reverse of the linked sequence from firstWagon to lastWagon
+    // the wagons are relinked, in O(n), by the first operation that hands out wagons or works at a position
+    private boolean reversed;
+
+    // the version of the train taken by the last snapshot, null if the train has changed since
+    private TrainVersion snapshot;
+
+    // the listeners that are notified of every reconfiguration, null if there are none
+    private List<TrainListener> listeners;
+
     /* Representation invariants:
         firstWagon == null || firstWagon.previousWagon == null
         engine != null
+        lastWagon == (firstWagon == null ? null : firstWagon.getLastWagonAttached())
+        numberOfWagons == getSize(firstWagon)
+        totalNumberOfSeats and totalMaxWeight equal the sums over all passenger and freight wagons in the train
+        wagonsById holds exactly the wagons of the train
+        positions == null || positions holds exactly the wagons of the train in the order of the linked sequence
+        firstWagon and lastWagon are the ends of the linked sequence, the train starts at lastWagon if reversed
      */
 
     public Train(Locomotive engine, String origin, String destination) {
@@ -19,15 +62,15 @@ public class Train {
 
     /* three helper methods that are useful in other methods */
     public boolean hasWagons() {
-        return getFirstWagon() != null;
+        return firstWagon != null;
     }
 
     public boolean isPassengerTrain() {
-        return getFirstWagon() instanceof PassengerWagon;
+        return firstWagon instanceof PassengerWagon;
     }
 
     public boolean isFreightTrain() {
-        return getFirstWagon() instanceof FreightWagon;
+        return firstWagon instanceof FreightWagon;
     }
 
     public Locomotive getEngine() {
@@ -35,6 +78,8 @@ public class Train {
     }
 
     public Wagon getFirstWagon() {
+        // callers may walk the sequence from here, so it must be in the order of the train
+        relink();
         return firstWagon;
     }
 
@@ -46,6 +91,73 @@ public class Train {
         return destination;
     }
 
+    public boolean hasPositionalIndex() {
+        return positions != null;
+    }
+
+    /**
+     * Enables or disables the positional index of the train.
+     * With the index enabled, finding a wagon at a position or the place for
+     * insertAtPosition and splitAtPosition takes O(log n) instead of walking the sequence,
+     * at the cost of some extra bookkeeping for every attached or detached wagon.
+     *
+     * @param enabled
+     */
+    public void setPositionalIndex(boolean enabled) {
+        if (!enabled) {
+            positions = null;
+        } else if (positions == null) {
+            positions = new WagonRope();
+            indexPositions(0, firstWagon);
+        }
+    }
+
+    public void addListener(TrainListener listener) {
+        if (listeners == null) {
+            listeners = new ArrayList<>(1);
+        }
+        listeners.add(listener);
+    }
+
+    public void removeListener(TrainListener listener) {
+        if (listeners != null && listeners.remove(listener) && listeners.isEmpty()) {
+            listeners = null;
+        }
+    }
+
+    private void notifyListeners(Consumer<TrainListener> notification) {
+        if (listeners != null) {
+            for (TrainListener listener : listeners) {
+                notification.accept(listener);
+            }
+        }
+    }
+
+    /**
+     * Registers a sequence of wagons at the given index in the positional index, if in use
+     * The sequence must not yet be connected to any wagons of the train behind the index.
+     *
+     * @param index the position of the first wagon of the sequence, starting at 0
+     * @param wagon the first wagon of the sequence
+     */
+    private void indexPositions(int index, Wagon wagon) {
+        indexPositions(index, wagon, null);
+    }
+
+    /**
+     * Registers the wagons from the given wagon until the given end at the given index
+     * in the positional index, if in use
+     *
+     * @param index the position of the first wagon of the sequence, starting at 0
+     * @param wagon the first wagon of the sequence
+     * @param end   the successor of the last wagon of the sequence, or null if the sequence has no successor
+     */
+    private void indexPositions(int index, Wagon wagon, Wagon end) {
+        if (positions != null && wagon != null) {
+            positions.insert(index, wagon, end);
+        }
+    }
+
     /**
      * Replaces the current sequence of wagons (if any) in the train
      * by the given new sequence of wagons (if any)
@@ -54,11 +166,100 @@ public class Train {
      * @param wagon the first wagon of a sequence of wagons to be attached
      */
     public void setFirstWagon(Wagon wagon) {
+        if (wagon == null || !wagon.hasPreviousWagon()) {
+            notifyListeners(listener -> listener.onSetFirstWagon(this, wagon));
+            replaceWagons(wagon);
+        }
+    }
 
+    /**
+     * Replaces the current sequence of wagons like setFirstWagon, without notifying the listeners
+     */
+    private void replaceWagons(Wagon wagon) {
         if (wagon == null) {
             this.firstWagon = null;
+            resetTotals();
         } else if (!wagon.hasPreviousWagon()) {
             this.firstWagon = wagon;
+            resetTotals();
+            addTotals(wagon);
+            indexPositions(0, wagon);
+        }
+    }
+
+    /**
+     * Relinks the sequence of wagons in the order of the train, if it has been reversed lazily
+     */
+    private void relink() {
+        if (reversed) {
+            reversed = false;
+            if (firstWagon != null && firstWagon.hasNextWagon()) {
+                lastWagon = firstWagon;
+                firstWagon = firstWagon.reverseSequence();
+                if (positions != null) {
+                    positions.clear();
+                    indexPositions(0, firstWagon);
+                }
+            }
+        }
+    }
+
+    /**
+     * Clears the running aggregates of the train
+     */
+    private void resetTotals() {
+        snapshot = null;
+        reversed = false;
+        lastWagon = null;
+        numberOfWagons = 0;
+        totalNumberOfSeats = 0;
+        totalMaxWeight = 0;
+        wagonsById.clear();
+        if (positions != null) {
+            positions.clear();
+        }
+    }
+
+    /**
+     * Adds the given sequence of wagons to the running aggregates of the train
+     * The caller is responsible for updating lastWagon if the sequence has not been attached at the rear.
+     *
+     * @param wagon the first wagon of the sequence that has been added to the train
+     */
+    private void addTotals(Wagon wagon) {
+        addTotals(wagon, null);
+    }
+
+    /**
+     * Adds the wagons from the given wagon until the given end to the running aggregates of the train
+     *
+     * @param wagon the first wagon of the sequence that has been added to the train
+     * @param end   the successor of the last wagon of the sequence, or null if the sequence has no successor
+     */
+    private void addTotals(Wagon wagon, Wagon end) {
+        while (wagon != end) {
+            addTotalsOf(wagon, 1);
+            lastWagon = wagon;
+            wagon = wagon.getNextWagon();
+        }
+    }
+
+    /**
+     * Adds (sign = 1) or subtracts (sign = -1) the properties of a single wagon to the running aggregates
+     * and registers or unregisters the wagon in the index by id
+     */
+    private void addTotalsOf(Wagon wagon, int sign) {
+        snapshot = null;
+        numberOfWagons += sign;
+        if (sign > 0) {
+            wagonsById.put(wagon.getId(), wagon);
+        } else {
+            wagonsById.remove(wagon.getId());
+        }
+        if (wagon instanceof PassengerWagon) {
+            totalNumberOfSeats += sign * ((PassengerWagon) wagon).getNumberOfSeats();
+        } else if (wagon instanceof FreightWagon) {
+            totalMaxWeight += sign * ((FreightWagon) wagon).getMaxWeight();
         }
     }
 
@@ -79,22 +280,16 @@ public class Train {
      * @return the number of Wagons connected to the train
      */
     public int getNumberOfWagons() {
-        if (hasWagons()) {
-            return getFirstWagon().getTailLength() + 1;
-        } else {
-            return 0;
-        }
+        return numberOfWagons;
     }
 
     /**
      * @return the last wagon attached to the train
      */
     public Wagon getLastWagonAttached() {
-        if (hasWagons()) {
-            return getFirstWagon().getLastWagonAttached();
-        } else {
-            return null;
-        }
+        // the wagon may be attached elsewhere by the caller, so its links must be in the order of the train
+        relink();
+        return lastWagon;
     }
 
     /**
@@ -105,17 +300,7 @@ public class Train {
         if (isFreightTrain()) {
             return 0;
         } else {
-            int numberOfSeats = 0;
-            PassengerWagon wagon = (PassengerWagon) getFirstWagon();
-            if (wagon == null) {
-                return numberOfSeats;
-            }
-            numberOfSeats += wagon.getNumberOfSeats();
-            while (wagon.hasNextWagon()) {
-                wagon = (PassengerWagon) wagon.getNextWagon();
-                numberOfSeats += wagon.getNumberOfSeats();
-            }
-            return numberOfSeats;
+            return totalNumberOfSeats;
         }
 
     }
@@ -130,17 +315,7 @@ public class Train {
         if (isPassengerTrain()) {
             return 0;
         } else {
-            int maxWeight = 0;
-            FreightWagon wagon = (FreightWagon) getFirstWagon();
-            if (wagon == null) {
-                return maxWeight;
-            }
-            maxWeight += wagon.getMaxWeight();
-            while (wagon.hasNextWagon()) {
-                wagon = (FreightWagon) wagon.getNextWagon();
-                maxWeight += wagon.getMaxWeight();
-            }
-            return maxWeight;
+            return totalMaxWeight;
         }
 
     }
@@ -153,17 +328,27 @@ public class Train {
      * (return null if the position is not valid for this train)
      */
     public Wagon findWagonAtPosition(int position) {
-        Wagon wagon = getFirstWagon();
-        if (position <= 0) {
+        if (position <= 0 || position > numberOfWagons) {
             return null;
         }
-        for (int i = 1; i < position; i++) {
-            if (wagon == null) {
-                return null;
-            } else {
+        relink();
+        long start = TrainMetrics.start();
+        Wagon wagon;
+        int hops = 0;
+        if (positions != null) {
+            wagon = positions.get(position - 1);
+        } else if (position <= numberOfWagons / 2) {
+            wagon = firstWagon;
+            for (; hops < position - 1; hops++) {
                 wagon = wagon.getNextWagon();
             }
+        } else {
+            wagon = lastWagon;
+            for (; hops < numberOfWagons - position; hops++) {
+                wagon = wagon.getPreviousWagon();
+            }
         }
+        TrainMetrics.record(TrainMetrics.Operation.TRAIN_FIND_WAGON_AT_POSITION, start, hops);
         return wagon;
     }
 
@@ -175,22 +360,38 @@ public class Train {
      * (return null if no wagon was found with the given wagonId)
      */
     public Wagon findWagonById(int wagonId) {
-        Wagon wagon = getFirstWagon();
-        // Checks if first wagon is not null
-        if (wagon != null) {
-            //While wagon is not null you get all the id's of the wagon's and checks it with the input
-            // if the next wagon is null return null
-            while (true) {
-                if (wagonId == wagon.getId()) {
-                    return wagon;
-                }
-                wagon = wagon.getNextWagon();
-                if (wagon == null) {
-                    return null;
-                }
+        // the index by id does not depend on the order of the train, so a reversed train is not relinked
+        long start = TrainMetrics.start();
+        Wagon wagon = wagonsById.get(wagonId);
+        TrainMetrics.record(TrainMetrics.Operation.TRAIN_FIND_WAGON_BY_ID, start, 0);
+        return wagon;
+    }
+
+    /**
+     * Finds the position of a wagon of the train, with the positional index if in use,
+     * or else by walking from the wagon towards both ends of its sequence at once,
+     * which takes as many steps as the wagon is away from the nearest end
+     *
+     * @param wagon a wagon of this train
+     * @return the position of the wagon (starting at 1 for the first wagon of the train)
+     */
+    int positionOf(Wagon wagon) {
+        // the index of the wagon in the linked sequence, starting at 0
+        int index;
+        if (positions != null) {
+            index = positions.indexOf(wagon);
+        } else {
+            Wagon front = wagon;
+            Wagon rear = wagon;
+            int hops = 0;
+            while (front.hasPreviousWagon() && rear.hasNextWagon()) {
+                front = front.getPreviousWagon();
+                rear = rear.getNextWagon();
+                hops++;
             }
+            index = front.hasPreviousWagon() ? numberOfWagons - 1 - hops : hops;
         }
-        return null;
+        return reversed ? numberOfWagons - index : index + 1;
     }
 
     /**
@@ -205,13 +406,28 @@ public class Train {
         if (wagon == null) {
             return false;
         }
-        Locomotive engine = getEngine();
-        Wagon firstWagon = getFirstWagon();
-        int capacity = engine.getMaxWagons();
+        long start = TrainMetrics.start();
+        // the sequence is only walked if its summary is not kept with its first wagon
+        boolean summarized = wagon.hasSequenceSummary();
+        int numberOfWagons = wagon.getSequenceSummary().getNumberOfWagons();
+        boolean canAttach = canAttach(wagon, numberOfWagons);
+        TrainMetrics.record(TrainMetrics.Operation.TRAIN_CAN_ATTACH, start, summarized ? 0 : numberOfWagons);
+        return canAttach;
+    }
+
+    /**
+     * Determines if a sequence of wagons of the given length, starting with the given wagon,
+     * can be attached to the train
+     *
+     * @param wagon           the first wagon of the sequence
+     * @param numberOfWagons  the number of wagons in the sequence
+     */
+    private boolean canAttach(Wagon wagon, int numberOfWagons) {
+        int capacity = getEngine().getMaxWagons();
         if (firstWagon == null) {
-            return capacity >= getSize(wagon);
+            return capacity >= numberOfWagons;
         } else {
-            return firstWagon.getClass().equals(wagon.getClass()) && capacity >= (getSize(firstWagon) + getSize(wagon));
+            return firstWagon.getClass().equals(wagon.getClass()) && capacity >= getNumberOfWagons() + numberOfWagons;
         }
     }
 
@@ -222,22 +438,54 @@ public class Train {
      *
      * @param wagon the first wagon of a sequence of wagons to be attached
      * @return whether the attachment could be completed successfully
+     * @throws IllegalStateException if the sequence is still attached behind another wagon
      */
     public boolean attachToRear(Wagon wagon) {
-        if (canAttach(wagon)) {
-
-            if (getFirstWagon() == null) {
-                setFirstWagon(wagon);
-            } else {
-                Wagon lastWagon = getFirstWagon().getLastWagonAttached();
-                lastWagon.attachTail(wagon);
-            }
+        if (canAttach(wagon) && canLink(wagon)) {
+            notifyListeners(listener -> listener.onAttachToRear(this, wagon));
+            attach(wagon);
             return true;
         } else {
             return false;
         }
     }
 
+    /**
+     * Verifies that the given sequence of wagons can be linked into the linked sequence of the train,
+     * before any listener is notified of the reconfiguration
+     *
+     * @param wagon the first wagon of a sequence of wagons to be attached
+     * @return false if the sequence is already part of this train
+     * @throws IllegalStateException if the sequence is still attached behind another wagon
+     */
+    private boolean canLink(Wagon wagon) {
+        if (wagonsById.get(wagon.getId()) == wagon) {
+            return false;
+        }
+        if (wagon.hasPreviousWagon()) {
+            throw new IllegalStateException("ERROR: Wagon " + wagon + " has previous wagon " + wagon.getPreviousWagon() +
+                    " and cannot be attached");
+        }
+        return true;
+    }
+
+    /**
+     * Attaches the given sequence of wagons to the rear of the train,
+     * after the caller has verified that the attachment can be made
+     *
+     * @param wagon the first wagon of a sequence of wagons to be attached
+     */
+    private void attach(Wagon wagon) {
+        if (firstWagon == null) {
+            replaceWagons(wagon);
+        } else if (reversed) {
+            // the rear of a reversed train is the front of its linked sequence
+            prependSequence(wagon.reverseSequence());
+        } else {
+            appendSequence(wagon);
+        }
+    }
+
 
     /**
      * Tries to insert the given sequence of wagons at the front of the train
@@ -249,16 +497,22 @@ public class Train {
      */
     public boolean insertAtFront(Wagon wagon) {
         if (wagon != null && canAttach(wagon)) {
-            if (getFirstWagon() != null && getFirstWagon().getLastWagonAttached() == wagon.getLastWagonAttached()) {
+            if (wagonsById.get(wagon.getId()) == wagon) {
+                // the sequence is already part of this train
                 return false;
             }
-            Wagon headWagon = getFirstWagon();
-            setFirstWagon(wagon);
-            if (wagon == null) {
-                return false;
+            if (wagon.hasPreviousWagon()) {
+                // a train without wagons ignores a sequence that is still attached behind another wagon
+                return firstWagon == null;
             }
-            if (headWagon != null) {
-                wagon.getLastWagonAttached().attachTail(headWagon);
+            notifyListeners(listener -> listener.onInsertAtFront(this, wagon));
+            if (firstWagon == null) {
+                replaceWagons(wagon);
+            } else if (reversed) {
+                // the front of a reversed train is the rear of its linked sequence
+                appendSequence(wagon.reverseSequence());
+            } else {
+                prependSequence(wagon);
             }
             return true;
 
@@ -267,36 +521,68 @@ public class Train {
     }
 
 
+    /**
+     * Links the given sequence of wagons behind the last wagon of the linked sequence of the train
+     *
+     * @param wagon the first wagon of a sequence of wagons to be attached
+     */
+    private void appendSequence(Wagon wagon) {
+        // the sequence is linked before it is indexed, so a failed link leaves the index intact
+        lastWagon.attachTail(wagon);
+        indexPositions(numberOfWagons, wagon);
+        addTotals(wagon);
+    }
+
+    /**
+     * Links the given sequence of wagons in front of the first wagon of the linked sequence of the train
+     *
+     * @param wagon the first wagon of a sequence of wagons to be attached
+     */
+    private void prependSequence(Wagon wagon) {
+        Wagon headWagon = firstWagon;
+        Wagon tailWagon = lastWagon;
+        // the sequence is linked before it is indexed, so a failed link leaves the index intact
+        wagon.getLastWagonAttached().attachTail(headWagon);
+        firstWagon = wagon;
+        indexPositions(0, wagon, headWagon);
+        addTotals(wagon, headWagon);
+        lastWagon = tailWagon;
+    }
+
     /**
      * Tries to insert the given sequence of wagons at/before the given wagon position in the train
      * No change is made if the insertion cannot be made.
      * (when the sequence is not compatible of the engine has insufficient capacity
      * or the given position is not valid in this train)
+     * Inserting at position 1 inserts the sequence at the front of the train, like insertAtFront,
+     * and keeps all wagons that were in the train.
      *
      * @param wagon the first wagon of a sequence of wagons to be attached
      * @return whether the insertion could be completed successfully
+     * @throws IllegalStateException if the sequence is still attached behind another wagon
      */
     public boolean insertAtPosition(int position, Wagon wagon) {
-        Wagon firstWagon = getFirstWagon();
-        if (position <= 0) {
+        if (position <= 0 || !canAttach(wagon)) {
             return false;
         }
         if (position == 1) {
-            setFirstWagon(wagon);
-            return true;
+            return insertAtFront(wagon);
         }
-        if (firstWagon == null) {
+        relink();
+        Wagon wagonAtPosition = findWagonAtPosition(position);
+        if (wagonAtPosition == null || !canLink(wagon)) {
             return false;
         } else {
-            Wagon wagonAtPosition = findWagonAtPosition(position);
-            if (wagonAtPosition == null) {
-                return false;
-            } else {
-                Wagon wagonBeforePosition = wagonAtPosition.getPreviousWagon();
-                wagonBeforePosition.attachTail(wagon);
-                wagon.getLastWagonAttached().attachTail(wagonAtPosition);
-                return true;
-            }
+            notifyListeners(listener -> listener.onInsertAtPosition(this, position, wagon));
+            Wagon tailWagon = lastWagon;
+            Wagon wagonBeforePosition = wagonAtPosition.detachFront();
+            wagonBeforePosition.attachTail(wagon);
+            indexPositions(position - 1, wagon);
+            // the inserted sequence is not yet connected to the rest of the train
+            addTotals(wagon);
+            lastWagon.attachTail(wagonAtPosition);
+            lastWagon = tailWagon;
+            return true;
         }
     }
 
@@ -313,15 +599,25 @@ public class Train {
      */
     public boolean moveOneWagon(int wagonId, Train toTrain) {
         Wagon wagon = findWagonById(wagonId);
-        if (wagon == null || !toTrain.canAttach(wagon)) {
+        if (wagon == null || !toTrain.canAttach(wagon, 1)) {
             return false;
         }
-        Wagon nextWagon = wagon.getNextWagon();
-        wagon.removeFromSequence();
-        if (wagon == getFirstWagon()) {
-            setFirstWagon(nextWagon);
+        notifyListeners(listener -> listener.onMoveOneWagon(this, wagon, toTrain));
+        // removing a single wagon does not depend on the direction of the linked sequence,
+        // and the wagon was found by id, so a reversed train is not relinked
+        if (wagon == firstWagon) {
+            firstWagon = wagon.getNextWagon();
+        }
+        if (wagon == lastWagon) {
+            lastWagon = wagon.getPreviousWagon();
+        }
+        if (positions != null) {
+            positions.remove(wagon);
         }
-        return toTrain.attachToRear(wagon);
+        wagon.removeFromSequence();
+        addTotalsOf(wagon, -1);
+        toTrain.attach(wagon);
+        return true;
     }
 
 
@@ -337,16 +633,25 @@ public class Train {
      * @return whether the move could be completed successfully
      */
     public boolean splitAtPosition(int position, Train toTrain) {
-
+        relink();
         Wagon wagon = findWagonAtPosition(position);
-        if (wagon == null || !toTrain.canAttach(wagon)) {
+        if (wagon == null || !toTrain.canAttach(wagon, numberOfWagons - position + 1)) {
             return false;
         }
+        notifyListeners(listener -> listener.onSplitAtPosition(this, position, toTrain));
         if (wagon == getFirstWagon()) {
-            setFirstWagon(null);
+            replaceWagons(null);
+        } else {
+            lastWagon = wagon.detachFront();
+            if (positions != null) {
+                positions.truncate(position - 1);
+            }
+            for (Wagon removed = wagon; removed != null; removed = removed.getNextWagon()) {
+                addTotalsOf(removed, -1);
+            }
         }
-        wagon.detachFront();
-        return toTrain.attachToRear(wagon);
+        toTrain.attach(wagon);
+        return true;
     }
 
     /**
@@ -355,28 +660,195 @@ public class Train {
      * the previous wagon of the last wagon becomes the second wagon
      * etc.
      * (No change if the train has no wagons or only one wagon)
+     * Reversing itself takes constant time. The wagons are relinked in their new order, in O(n),
+     * by the first operation after it that hands out wagons of the train or works at a position:
+     * getFirstWagon, getLastWagonAttached, findWagonAtPosition, iteration, insertAtPosition and splitAtPosition.
+     * findWagonById, moveOneWagon, attachToRear, insertAtFront, the totals and another reverse
+     * do not relink the wagons.
      */
     public void reverse() {
-        if (hasWagons() && getFirstWagon().hasNextWagon()) {
-            setFirstWagon(getFirstWagon().reverseSequence());
+        notifyListeners(listener -> listener.onReverse(this));
+        if (numberOfWagons > 1) {
+            snapshot = null;
+            reversed = !reversed;
         }
     }
 
+    /**
+     * Takes an immutable snapshot of the current configuration of the train,
+     * from which what-if reconfigurations can be planned without changing the train.
+     * The snapshot is kept until the train changes, so repeated snapshots of an unchanged train
+     * take constant time and share all their structure.
+     *
+     * @return the version of the train
+     */
+    public TrainVersion snapshot() {
+        if (snapshot == null) {
+            snapshot = TrainVersion.of(this);
+        }
+        return snapshot;
+    }
+
+    /**
+     * @return an iterator over the wagons of the train, from the first to the last wagon
+     */
     @Override
-    public String toString() {
-        StringBuilder wagons = new StringBuilder();
-        Wagon wagon = getFirstWagon();
-        while (wagon != null) {
-            wagons.append(wagon);
+    public Iterator<Wagon> iterator() {
+        return Spliterators.iterator(spliterator());
+    }
+
+    /**
+     * Creates a spliterator over the wagons of the train, from the first to the last wagon,
+     * that splits the wagons into halves of equal size for parallel processing.
+     * The middle of a split is found with the positional index, if in use,
+     * or else by walking half the wagons of the split.
+     * The train must not be reconfigured while its wagons are being traversed.
+     *
+     * @return the spliterator
+     */
+    @Override
+    public Spliterator<Wagon> spliterator() {
+        relink();
+        return new WagonSpliterator(firstWagon, 1, numberOfWagons + 1);
+    }
+
+    /**
+     * @return a sequential stream of the wagons of the train, from the first to the last wagon,
+     * which can be made parallel to process the wagons of long trains on multiple threads
+     */
+    public Stream<Wagon> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    /**
+     * Traverses the wagons at the positions [position, end) in the order of the train,
+     * which has been relinked when the traversal was created
+     */
+    private class WagonSpliterator implements Spliterator<Wagon> {
+        private Wagon next;         // the wagon at position, or null if it has not been found yet
+        private int position;
+        private final int end;
+
+        WagonSpliterator(Wagon next, int position, int end) {
+            this.next = next;
+            this.position = position;
+            this.end = end;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super Wagon> action) {
+            if (position >= end) {
+                return false;
+            }
+            if (next == null) {
+                next = findWagonAtPosition(position);
+            }
+            Wagon wagon = next;
+            next = wagon.getNextWagon();
+            position++;
+            action.accept(wagon);
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super Wagon> action) {
+            if (position < end && next == null) {
+                next = findWagonAtPosition(position);
+            }
+            for (; position < end; position++) {
+                Wagon wagon = next;
+                next = wagon.getNextWagon();
+                action.accept(wagon);
+            }
+        }
+
+        @Override
+        public Spliterator<Wagon> trySplit() {
+            int size = end - position;
+            if (size < 2 * MIN_SPLIT_SIZE) {
+                return null;
+            }
+            int middle = position + size / 2;
+            Wagon middleWagon;
+            if (positions != null || next == null) {
+                middleWagon = findWagonAtPosition(middle);
+            } else {
+                middleWagon = next;
+                for (int i = position; i < middle; i++) {
+                    middleWagon = middleWagon.getNextWagon();
+                }
+            }
+            Spliterator<Wagon> prefix = new WagonSpliterator(next, position, middle);
+            next = middleWagon;
+            position = middle;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return end - position;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | SIZED | SUBSIZED | NONNULL;
+        }
+    }
+
+    /**
+     * Writes the description of the train, as returned by toString(), wagon by wagon to the output,
+     * without building the whole description in memory first
+     *
+     * @param out the output to write to, e.g. a buffered Writer
+     * @return the output
+     * @throws IOException if the output cannot be written to
+     */
+    public <A extends Appendable> A render(A out) throws IOException {
+        out.append(getEngine().toString());
+        for (Wagon wagon : this) {
+            out.append(wagon.toString());
+        }
+        return renderRoute(out, " with " + getNumberOfWagons() + " wagons");
+    }
+
+    /**
+     * Writes the description of a page of the wagons of the train to the output,
+     * finding the first wagon of the page by its position and walking the rest of the page from there.
+     * The part of the page that lies outside the train is left out, so paging beyond the rear renders no wagons.
+     *
+     * @param out  the output to write to
+     * @param from the position of the first wagon of the page, starting at 1
+     * @param to   the position of the last wagon of the page
+     * @return the output
+     * @throws IOException              if the output cannot be written to
+     * @throws IllegalArgumentException if the page starts before the first position or ends before it starts
+     */
+    public <A extends Appendable> A renderPage(A out, int from, int to) throws IOException {
+        if (from < 1 || to < from - 1) {
+            throw new IllegalArgumentException("ERROR: invalid page of wagons " + from + " to " + to);
+        }
+        int end = Math.min(to, numberOfWagons) + 1;
+        out.append(getEngine().toString());
+        Wagon wagon = from < end ? findWagonAtPosition(from) : null;
+        for (int position = from; position < end; position++) {
+            out.append(wagon.toString());
             wagon = wagon.getNextWagon();
         }
-        return getEngine().toString() +
-                wagons +
-                " with " +
-                getNumberOfWagons() +
-                " wagons from " +
-                getOrigin() +
-                " to " +
-                getDestination();
+        return renderRoute(out, " with wagons " + from + " to " + (end - 1) + " of " + getNumberOfWagons());
+    }
+
+    private <A extends Appendable> A renderRoute(A out, String wagons) throws IOException {
+        out.append(wagons).append(" from ").append(getOrigin()).append(" to ").append(getDestination());
+        return out;
+    }
+
+    @Override
+    public String toString() {
+        try {
+            return render(new StringBuilder()).toString();
+        } catch (IOException e) {
+            // a StringBuilder does not throw
+            throw new IllegalStateException(e);
+        }
     }
 }
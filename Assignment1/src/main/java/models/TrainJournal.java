@@ -0,0 +1,483 @@
+package models;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * An append-only journal of all reconfigurations of a fleet of trains, from which the fleet can be
+ * restored after the process restarts.
+ * <p>
+ * Every reconfiguration of a train in the journal is appended as a compact binary record to a memory-mapped log,
+ * before the train is changed. After every snapshotInterval records, the journal writes a snapshot of
+ * all its trains and clears the log, so restoring the fleet takes time proportional to the size of the fleet
+ * and the records since the last snapshot, not to the full history.
+ * <p>
+ * The journal is kept in a directory with two files:
+ * <pre>
+ *     fleet.snapshot    the epoch of the snapshot (int), followed by the fleet in the binary format of FleetLoader
+ *     journal.log       a header with JOURNAL_MAGIC and the epoch of the log (int), followed by the records
+ * </pre>
+ * Each record starts with its type (byte) and the locNumber of its train (int). The type is written last,
+ * so the log ends at the first record type 0, also if the process stopped while writing a record.
+ * The records of the log only apply to a snapshot with the same epoch.
+ * <p>
+ * All trains that exchange wagons with trains in the journal should be added to the journal as well.
+ * The wagon ids in the journal must be unique, as in a fleet description: a snapshot of trains that share
+ * a wagon id cannot be restored, so it is not written, and the reconfiguration that would have triggered it
+ * fails with an IllegalArgumentException before any train is changed.
+ * The journal is not thread-safe; trains in the journal should be reconfigured by one thread at a time.
+ */
+public class TrainJournal implements TrainListener, AutoCloseable {
+    public static final int JOURNAL_MAGIC = 0x544A4C31;     // "TJL1"
+    private static final String SNAPSHOT_FILE = "fleet.snapshot";
+    private static final String LOG_FILE = "journal.log";
+    private static final int HEADER_SIZE = 8;
+    private static final int INITIAL_CAPACITY = 1 << 16;
+
+    // record types
+    private static final byte ADD_TRAIN = 1;
+    private static final byte REMOVE_TRAIN = 2;
+    private static final byte SET_FIRST_WAGON = 3;
+    private static final byte ATTACH_TO_REAR = 4;
+    private static final byte INSERT_AT_FRONT = 5;
+    private static final byte INSERT_AT_POSITION = 6;
+    private static final byte MOVE_ONE_WAGON = 7;
+    private static final byte SPLIT_AT_POSITION = 8;
+    private static final byte REVERSE = 9;
+
+    private final Path directory;
+    private final int snapshotInterval;
+    private final Map<Integer, Train> trains = new LinkedHashMap<>();
+    private final FileChannel channel;
+    private MappedByteBuffer log;
+    private int epoch;
+    private int numberOfRecords;
+
+    /* Representation invariants:
+        the trains are restored by applying the records of the log from HEADER_SIZE to log.position()
+        to the trains of the snapshot with the same epoch
+        this journal listens to exactly the trains in trains
+        numberOfRecords is the number of records in the log
+     */
+
+    /**
+     * Opens the journal in the given directory, and restores the trains of the journal
+     * from its last snapshot and the records that were appended since
+     *
+     * @param directory        the directory of the journal, which is created if it does not exist
+     * @param snapshotInterval the number of records after which a new snapshot is written
+     */
+    public TrainJournal(String directory, int snapshotInterval) {
+        this.directory = Path.of(directory);
+        this.snapshotInterval = snapshotInterval;
+        try {
+            Files.createDirectories(this.directory);
+            channel = FileChannel.open(this.directory.resolve(LOG_FILE),
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            log = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(INITIAL_CAPACITY, channel.size()));
+            recover();
+        } catch (IOException e) {
+            throw new RuntimeException("IO exception on path: " + directory, e);
+        }
+        for (Train train : trains.values()) {
+            train.addListener(this);
+        }
+    }
+
+    /**
+     * @return the trains in the journal, in the order in which they were added
+     */
+    public Collection<Train> getTrains() {
+        return Collections.unmodifiableCollection(trains.values());
+    }
+
+    /**
+     * @param locNumber
+     * @return the train in the journal with the given locomotive number, or null if there is no such train
+     */
+    public Train getTrain(int locNumber) {
+        return trains.get(locNumber);
+    }
+
+    public int getEpoch() {
+        return epoch;
+    }
+
+    /**
+     * @return the number of records that have been appended since the last snapshot
+     */
+    public int getNumberOfRecords() {
+        return numberOfRecords;
+    }
+
+    /**
+     * Adds the train with its current sequence of wagons to the journal
+     * From now on, every reconfiguration of the train is appended to the journal.
+     *
+     * @param train
+     * @return whether the train could be added
+     * (return false if the journal already holds a train with the same locomotive number)
+     */
+    public boolean addTrain(Train train) {
+        int locNumber = train.getEngine().getLocNumber();
+        if (trains.containsKey(locNumber)) {
+            return false;
+        }
+        byte[] origin = bytesOf(train.getOrigin());
+        byte[] destination = bytesOf(train.getDestination());
+        Wagon firstWagon = train.getFirstWagon();
+        int start = beginRecord(locNumber, 12 + lengthOf(origin) + lengthOf(destination) + sequenceLength(firstWagon));
+        log.putInt(train.getEngine().getMaxWagons());
+        putBytes(origin);
+        putBytes(destination);
+        putSequence(firstWagon);
+        endRecord(start, ADD_TRAIN);
+        trains.put(locNumber, train);
+        train.addListener(this);
+        return true;
+    }
+
+    /**
+     * Removes the train with the given locomotive number from the journal
+     *
+     * @param locNumber
+     * @return the removed train, or null if the journal holds no such train
+     */
+    public Train removeTrain(int locNumber) {
+        Train train = trains.get(locNumber);
+        if (train == null) {
+            return null;
+        }
+        endRecord(beginRecord(locNumber, 0), REMOVE_TRAIN);
+        trains.remove(locNumber);
+        train.removeListener(this);
+        return train;
+    }
+
+    @Override
+    public void onSetFirstWagon(Train train, Wagon wagon) {
+        appendSequence(SET_FIRST_WAGON, train, 0, wagon);
+    }
+
+    @Override
+    public void onAttachToRear(Train train, Wagon wagon) {
+        appendSequence(ATTACH_TO_REAR, train, 0, wagon);
+    }
+
+    @Override
+    public void onInsertAtFront(Train train, Wagon wagon) {
+        appendSequence(INSERT_AT_FRONT, train, 0, wagon);
+    }
+
+    @Override
+    public void onInsertAtPosition(Train train, int position, Wagon wagon) {
+        appendSequence(INSERT_AT_POSITION, train, position, wagon);
+    }
+
+    @Override
+    public void onMoveOneWagon(Train fromTrain, Wagon wagon, Train toTrain) {
+        appendTransfer(MOVE_ONE_WAGON, fromTrain, wagon.getId(), toTrain);
+    }
+
+    @Override
+    public void onSplitAtPosition(Train fromTrain, int position, Train toTrain) {
+        appendTransfer(SPLIT_AT_POSITION, fromTrain, position, toTrain);
+    }
+
+    @Override
+    public void onReverse(Train train) {
+        endRecord(beginRecord(train.getEngine().getLocNumber(), 0), REVERSE);
+    }
+
+    /**
+     * Writes a snapshot of all trains in the journal and clears the log
+     * The new snapshot replaces the previous snapshot atomically,
+     * before the records it contains are cleared from the log.
+     */
+    public void snapshot() {
+        Path snapshotPath = directory.resolve(SNAPSHOT_FILE);
+        Path tempPath = directory.resolve(SNAPSHOT_FILE + ".tmp");
+        try (FileOutputStream output = new FileOutputStream(tempPath.toFile())) {
+            DataOutputStream data = new DataOutputStream(output);
+            data.writeInt(epoch + 1);
+            FleetLoader.writeBinary(trains.values(), data);
+            data.flush();
+            output.getFD().sync();
+        } catch (IOException e) {
+            throw new RuntimeException("IO exception on path: " + tempPath, e);
+        }
+        try {
+            Files.move(tempPath, snapshotPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new RuntimeException("IO exception on path: " + snapshotPath, e);
+        }
+        // the records are contained in the snapshot now, and are ignored as long as the log has the old epoch
+        clearLog(epoch + 1);
+    }
+
+    /**
+     * Forces all records that have been appended to the journal onto the storage device
+     */
+    public void force() {
+        log.force();
+    }
+
+    /**
+     * Forces all records onto the storage device and stops journaling the trains
+     */
+    @Override
+    public void close() {
+        force();
+        for (Train train : trains.values()) {
+            train.removeListener(this);
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new RuntimeException("IO exception on path: " + directory, e);
+        }
+    }
+
+    private void appendSequence(byte type, Train train, int position, Wagon wagon) {
+        int start = beginRecord(train.getEngine().getLocNumber(), 4 + sequenceLength(wagon));
+        log.putInt(position);
+        putSequence(wagon);
+        endRecord(start, type);
+    }
+
+    private void appendTransfer(byte type, Train fromTrain, int argument, Train toTrain) {
+        int start = beginRecord(fromTrain.getEngine().getLocNumber(), 8);
+        log.putInt(argument);
+        log.putInt(toTrain.getEngine().getLocNumber());
+        endRecord(start, type);
+    }
+
+    /**
+     * Starts a new record of which the type is written by endRecord
+     * Writes a snapshot first if snapshotInterval records have been appended since the last snapshot,
+     * at which point all earlier reconfigurations have been completed.
+     *
+     * @param locNumber the locomotive number of the train of the record
+     * @param length    the length of the remainder of the record in bytes
+     * @return the start of the record in the log
+     */
+    private int beginRecord(int locNumber, int length) {
+        if (numberOfRecords >= snapshotInterval) {
+            snapshot();
+        }
+        int start = log.position();
+        // keep room for the type of the next record, which marks the end of the log
+        ensureCapacity(start + 5 + length + 1);
+        log.position(start + 1);
+        log.putInt(locNumber);
+        return start;
+    }
+
+    private void endRecord(int start, byte type) {
+        log.put(start, type);
+        numberOfRecords++;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > log.capacity()) {
+            int position = log.position();
+            long newCapacity = Math.max(capacity, 2L * log.capacity());
+            try {
+                log = channel.map(FileChannel.MapMode.READ_WRITE, 0, newCapacity);
+            } catch (IOException e) {
+                throw new RuntimeException("IO exception on path: " + directory, e);
+            }
+            log.position(position);
+        }
+    }
+
+    private static int sequenceLength(Wagon wagon) {
+        return 5 + (wagon == null ? 0 : 8 * wagon.getSequenceSummary().getNumberOfWagons());
+    }
+
+    /**
+     * Writes the kind of wagons ('P' or 'F'), the number of wagons and the id and number of seats
+     * or max weight of every wagon in the sequence
+     */
+    private void putSequence(Wagon wagon) {
+        log.put((byte) (wagon instanceof PassengerWagon ? 'P' : 'F'));
+        log.putInt(wagon == null ? 0 : wagon.getSequenceSummary().getNumberOfWagons());
+        for (; wagon != null; wagon = wagon.getNextWagon()) {
+            log.putInt(wagon.getId());
+            log.putInt(wagon instanceof PassengerWagon
+                    ? ((PassengerWagon) wagon).getNumberOfSeats() : ((FreightWagon) wagon).getMaxWeight());
+        }
+    }
+
+    private Wagon getSequence() {
+        byte kind = log.get();
+        int numberOfWagons = log.getInt();
+        Wagon first = null;
+        Wagon last = null;
+        for (int i = 0; i < numberOfWagons; i++) {
+            int wagonId = log.getInt();
+            int value = log.getInt();
+            Wagon wagon = kind == 'P' ? new PassengerWagon(wagonId, value) : new FreightWagon(wagonId, value);
+            if (first == null) {
+                first = wagon;
+            } else {
+                last.attachTail(wagon);
+            }
+            last = wagon;
+        }
+        return first;
+    }
+
+    /**
+     * @return the UTF-8 encoding of the string, or null if there is no string
+     */
+    private static byte[] bytesOf(String string) {
+        return string == null ? null : string.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int lengthOf(byte[] bytes) {
+        return bytes == null ? 0 : bytes.length;
+    }
+
+    /**
+     * Writes the length of the bytes, followed by the bytes, or a length of -1 if there are no bytes
+     */
+    private void putBytes(byte[] bytes) {
+        log.putInt(bytes == null ? -1 : bytes.length);
+        if (bytes != null) {
+            log.put(bytes);
+        }
+    }
+
+    private String getString() {
+        int length = log.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        log.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Zeroes all records and starts a new log with the given epoch
+     */
+    private void clearLog(int newEpoch) {
+        int end = log.position();
+        for (int i = HEADER_SIZE; i < end; i++) {
+            log.put(i, (byte) 0);
+        }
+        log.putInt(0, JOURNAL_MAGIC);
+        log.putInt(4, newEpoch);
+        log.position(HEADER_SIZE);
+        epoch = newEpoch;
+        numberOfRecords = 0;
+    }
+
+    /**
+     * Restores the trains from the snapshot, and replays the records of the log if they apply to the snapshot
+     */
+    private void recover() throws IOException {
+        int snapshotEpoch = 0;
+        Path snapshotPath = directory.resolve(SNAPSHOT_FILE);
+        if (Files.exists(snapshotPath)) {
+            try (InputStream input = Files.newInputStream(snapshotPath)) {
+                snapshotEpoch = new DataInputStream(input).readInt();
+                for (Train train : FleetLoader.loadBinary(input)) {
+                    trains.put(train.getEngine().getLocNumber(), train);
+                }
+            }
+        }
+        int logEpoch = log.getInt(0) == JOURNAL_MAGIC ? log.getInt(4) : -1;
+        if (logEpoch > snapshotEpoch) {
+            throw new IllegalStateException("ERROR: the journal log of epoch " + logEpoch
+                    + " does not match the snapshot of epoch " + snapshotEpoch);
+        }
+        log.position(HEADER_SIZE);
+        if (logEpoch == snapshotEpoch) {
+            epoch = logEpoch;
+            replay();
+        } else {
+            // a new log, or a log of which all records were contained in the snapshot
+            clearLog(snapshotEpoch);
+        }
+    }
+
+    /**
+     * Applies all records of the log to the restored trains
+     */
+    private void replay() {
+        byte type;
+        while (log.remaining() > 5 && (type = log.get(log.position())) != 0) {
+            log.position(log.position() + 1);
+            int locNumber = log.getInt();
+            Train train = trains.get(locNumber);
+            if (train == null && type != ADD_TRAIN) {
+                throw new IllegalStateException("ERROR: journal record " + type + " of unknown train " + locNumber);
+            }
+            switch (type) {
+                case ADD_TRAIN:
+                    train = new Train(new Locomotive(locNumber, log.getInt()), getString(), getString());
+                    train.setFirstWagon(getSequence());
+                    trains.put(locNumber, train);
+                    break;
+                case REMOVE_TRAIN:
+                    trains.remove(locNumber);
+                    break;
+                case SET_FIRST_WAGON:
+                    log.getInt();
+                    train.setFirstWagon(getSequence());
+                    break;
+                case ATTACH_TO_REAR:
+                    log.getInt();
+                    train.attachToRear(getSequence());
+                    break;
+                case INSERT_AT_FRONT:
+                    log.getInt();
+                    train.insertAtFront(getSequence());
+                    break;
+                case INSERT_AT_POSITION:
+                    int position = log.getInt();
+                    train.insertAtPosition(position, getSequence());
+                    break;
+                case MOVE_ONE_WAGON:
+                    int wagonId = log.getInt();
+                    train.moveOneWagon(wagonId, targetOf(log.getInt()));
+                    break;
+                case SPLIT_AT_POSITION:
+                    int splitPosition = log.getInt();
+                    train.splitAtPosition(splitPosition, targetOf(log.getInt()));
+                    break;
+                case REVERSE:
+                    train.reverse();
+                    break;
+                default:
+                    throw new IllegalStateException("ERROR: unknown journal record " + type);
+            }
+            numberOfRecords++;
+        }
+    }
+
+    /**
+     * @return the train in the journal that receives wagons,
+     * or a train that can receive any wagons if the wagons have left the journal
+     */
+    private Train targetOf(int locNumber) {
+        Train train = trains.get(locNumber);
+        return train != null ? train : new Train(new Locomotive(locNumber, Integer.MAX_VALUE), "", "");
+    }
+}
@@ -0,0 +1,68 @@
+package models;
+
+/**
+ * A listener that is notified of every reconfiguration of the trains it has been added to.
+ * A listener is notified after the train has verified that the reconfiguration can be made,
+ * but before any wagon is changed, so the sequences of wagons that are attached
+ * are still complete and a listener can record the reconfiguration ahead of it.
+ * Reconfigurations that cannot be made are not notified.
+ * All methods do nothing by default.
+ */
+public interface TrainListener {
+
+    /**
+     * The current sequence of wagons of the train is replaced by the given sequence
+     *
+     * @param train
+     * @param wagon the first wagon of the new sequence, or null if the train will have no wagons
+     */
+    default void onSetFirstWagon(Train train, Wagon wagon) {
+    }
+
+    /**
+     * @param train
+     * @param wagon the first wagon of the sequence of wagons that is attached to the rear of the train
+     */
+    default void onAttachToRear(Train train, Wagon wagon) {
+    }
+
+    /**
+     * @param train
+     * @param wagon the first wagon of the sequence of wagons that is inserted at the front of the train
+     */
+    default void onInsertAtFront(Train train, Wagon wagon) {
+    }
+
+    /**
+     * @param train
+     * @param position the position before which the sequence is inserted (at least 2)
+     * @param wagon    the first wagon of the sequence of wagons that is inserted
+     */
+    default void onInsertAtPosition(Train train, int position, Wagon wagon) {
+    }
+
+    /**
+     * @param fromTrain
+     * @param wagon     the wagon that is moved to the rear of toTrain
+     * @param toTrain
+     */
+    default void onMoveOneWagon(Train fromTrain, Wagon wagon, Train toTrain) {
+    }
+
+    /**
+     * The wagon at the given position and all its successors are moved to the rear of toTrain
+     * (fromTrain has been relinked in its order before it is notified)
+     *
+     * @param fromTrain
+     * @param position  the position of the first wagon that is moved to the rear of toTrain
+     * @param toTrain
+     */
+    default void onSplitAtPosition(Train fromTrain, int position, Train toTrain) {
+    }
+
+    /**
+     * @param train the train of which the sequence of wagons is reversed
+     */
+    default void onReverse(Train train) {
+    }
+}
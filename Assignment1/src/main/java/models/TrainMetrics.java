@@ -0,0 +1,227 @@
+package models;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Opt-in instrumentation of the operations of trains and wagons that may walk sequences of wagons.
+ * For every operation it counts the calls, the wagon hops walked and the latency of each call,
+ * in a histogram of power-of-two buckets, so quadratic usage patterns show up as operations
+ * with many calls and many hops per call.
+ * <p>
+ * The instrumentation is disabled by default; it can be enabled with setEnabled(true),
+ * through JMX after register(), or at startup with the system property -Dmodels.metrics=true.
+ * While disabled, an instrumented operation only reads a single flag.
+ */
+public class TrainMetrics implements TrainMetricsMXBean {
+    public static final String OBJECT_NAME = "models:type=TrainMetrics";
+    private static final long NOT_STARTED = Long.MIN_VALUE;
+    private static final int NUMBER_OF_BUCKETS = 64;
+
+    private static final TrainMetrics INSTANCE = new TrainMetrics();
+    private static volatile boolean enabled = Boolean.getBoolean("models.metrics");
+
+    private final Counters[] counters = new Counters[Operation.values().length];
+
+    /**
+     * The instrumented operations
+     */
+    public enum Operation {
+        WAGON_GET_LAST_WAGON_ATTACHED,
+        WAGON_GET_TAIL_LENGTH,
+        TRAIN_FIND_WAGON_AT_POSITION,
+        TRAIN_FIND_WAGON_BY_ID,
+        TRAIN_CAN_ATTACH
+    }
+
+    /**
+     * The statistics of one operation at the moment they were taken
+     */
+    public static class OperationStatistics {
+        private final String operation;
+        private final long count;
+        private final long totalHops;
+        private final long maxHops;
+        private final long totalNanos;
+        private final long[] latencyHistogram;
+
+        private OperationStatistics(String operation, long count, long totalHops, long maxHops,
+                                    long totalNanos, long[] latencyHistogram) {
+            this.operation = operation;
+            this.count = count;
+            this.totalHops = totalHops;
+            this.maxHops = maxHops;
+            this.totalNanos = totalNanos;
+            this.latencyHistogram = latencyHistogram;
+        }
+
+        public String getOperation() {
+            return operation;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * @return the total number of wagon hops walked by all calls
+         */
+        public long getTotalHops() {
+            return totalHops;
+        }
+
+        /**
+         * @return the largest number of wagon hops walked by a single call
+         */
+        public long getMaxHops() {
+            return maxHops;
+        }
+
+        public double getAverageHops() {
+            return count == 0 ? 0.0 : (double) totalHops / count;
+        }
+
+        public long getTotalNanos() {
+            return totalNanos;
+        }
+
+        /**
+         * @return the number of calls per latency bucket, where bucket i counts the calls
+         * that took at least 2^i and less than 2^(i+1) nanoseconds (bucket 0 also counts calls below 1 ns)
+         */
+        public long[] getLatencyHistogram() {
+            return latencyHistogram.clone();
+        }
+
+        @Override
+        public String toString() {
+            return "[" + operation + " called " + count + " times, walking " + totalHops + " hops]";
+        }
+    }
+
+    /**
+     * The counters of one operation, which can be updated by many threads concurrently
+     */
+    private static class Counters {
+        final LongAdder count = new LongAdder();
+        final LongAdder totalHops = new LongAdder();
+        final AtomicLong maxHops = new AtomicLong();
+        final LongAdder totalNanos = new LongAdder();
+        final LongAdder[] latencyHistogram = new LongAdder[NUMBER_OF_BUCKETS];
+
+        Counters() {
+            for (int i = 0; i < NUMBER_OF_BUCKETS; i++) {
+                latencyHistogram[i] = new LongAdder();
+            }
+        }
+
+        void add(long nanos, long hops) {
+            count.increment();
+            totalHops.add(hops);
+            if (hops > maxHops.get()) {
+                maxHops.accumulateAndGet(hops, Math::max);
+            }
+            totalNanos.add(nanos);
+            latencyHistogram[nanos <= 1 ? 0 : 63 - Long.numberOfLeadingZeros(nanos)].increment();
+        }
+    }
+
+    private TrainMetrics() {
+        resetCounters();
+    }
+
+    /**
+     * @return the instrumentation of all trains and wagons
+     */
+    public static TrainMetrics getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Registers the instrumentation with the platform MBean server as OBJECT_NAME, if not registered yet
+     */
+    public static void register() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            server.registerMBean(INSTANCE, new ObjectName(OBJECT_NAME));
+        } catch (InstanceAlreadyExistsException e) {
+            // registered before
+        } catch (JMException e) {
+            throw new IllegalStateException("ERROR: cannot register " + OBJECT_NAME, e);
+        }
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void setEnabled(boolean enabled) {
+        TrainMetrics.enabled = enabled;
+    }
+
+    @Override
+    public synchronized void reset() {
+        resetCounters();
+    }
+
+    private void resetCounters() {
+        for (int i = 0; i < counters.length; i++) {
+            counters[i] = new Counters();
+        }
+    }
+
+    @Override
+    public List<OperationStatistics> getStatistics() {
+        List<OperationStatistics> statistics = new ArrayList<>();
+        for (Operation operation : Operation.values()) {
+            statistics.add(snapshot(operation));
+        }
+        return statistics;
+    }
+
+    /**
+     * @param operation
+     * @return the statistics of the operation since the last reset
+     */
+    public OperationStatistics snapshot(Operation operation) {
+        Counters operationCounters = counters[operation.ordinal()];
+        long[] latencyHistogram = new long[NUMBER_OF_BUCKETS];
+        for (int i = 0; i < NUMBER_OF_BUCKETS; i++) {
+            latencyHistogram[i] = operationCounters.latencyHistogram[i].sum();
+        }
+        return new OperationStatistics(operation.name(), operationCounters.count.sum(),
+                operationCounters.totalHops.sum(), operationCounters.maxHops.get(),
+                operationCounters.totalNanos.sum(), latencyHistogram);
+    }
+
+    /**
+     * Starts measuring a call of an instrumented operation
+     *
+     * @return the start time of the call, or NOT_STARTED if the instrumentation is disabled
+     */
+    static long start() {
+        return enabled ? System.nanoTime() : NOT_STARTED;
+    }
+
+    /**
+     * Records a call of an instrumented operation, if it has been started while the instrumentation was enabled
+     *
+     * @param operation
+     * @param start     the result of start() at the beginning of the call
+     * @param hops      the number of wagon hops walked by the call
+     */
+    static void record(Operation operation, long start, long hops) {
+        if (start != NOT_STARTED) {
+            INSTANCE.counters[operation.ordinal()].add(System.nanoTime() - start, hops);
+        }
+    }
+}
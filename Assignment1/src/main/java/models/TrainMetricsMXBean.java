@@ -0,0 +1,24 @@
+package models;
+
+import java.util.List;
+
+/**
+ * The management interface of the instrumentation of trains and wagons,
+ * registered by TrainMetrics.register() as models:type=TrainMetrics
+ */
+public interface TrainMetricsMXBean {
+
+    boolean isEnabled();
+
+    void setEnabled(boolean enabled);
+
+    /**
+     * Clears the statistics of all operations
+     */
+    void reset();
+
+    /**
+     * @return the statistics of every instrumented operation since the last reset
+     */
+    List<TrainMetrics.OperationStatistics> getStatistics();
+}
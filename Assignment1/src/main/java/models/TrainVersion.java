@@ -0,0 +1,565 @@
+package models;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * An immutable version of the configuration of a train, for trying out many candidate reconfigurations.
+ * Every reconfiguration returns a new version and leaves the original version unchanged.
+ * The wagons are kept in a persistent implicit treap: a reconfiguration copies only the O(log n) nodes
+ * on the paths to the positions it changes, and shares all other nodes with the original version,
+ * so thousands of versions of a long consist fit in memory at once.
+ * Reversing a version takes constant time, by marking the copied root as reversed.
+ * <p>
+ * Like CompactTrain, a version does not retain the Wagon objects, but copies their properties.
+ * Wagons that are handed out are new, detached wagons with the properties of the wagon in the version.
+ */
+public class TrainVersion {
+    private static final byte PASSENGER = 1;
+    private static final byte FREIGHT = 2;
+
+    /**
+     * A node of the treap. The fields of a node are only assigned while the node is created,
+     * and never after it has become part of a version.
+     */
+    private static class Node {
+        final int id;
+        final byte kind;
+        final int value;                // the number of seats or the maximum weight of the wagon
+        final int priority;
+        boolean reversed;               // whether the subtree is the mirror image of its children
+        Node left, right;
+        int size;
+        int totalNumberOfSeats;
+        int totalMaxWeight;
+        int minId, maxId;               // the range of the ids of the wagons in the subtree
+        long idSignature;               // the union of the signatures of the ids of the wagons in the subtree
+
+        Node(int id, byte kind, int value, int priority) {
+            this.id = id;
+            this.kind = kind;
+            this.value = value;
+            this.priority = priority;
+        }
+
+        Node(Wagon wagon) {
+            this(wagon.getId(), kindOf(wagon), valueOf(wagon), ThreadLocalRandom.current().nextInt());
+        }
+
+        Node copy() {
+            Node copy = new Node(id, kind, value, priority);
+            copy.reversed = reversed;
+            copy.left = left;
+            copy.right = right;
+            copy.size = size;
+            copy.totalNumberOfSeats = totalNumberOfSeats;
+            copy.totalMaxWeight = totalMaxWeight;
+            copy.minId = minId;
+            copy.maxId = maxId;
+            copy.idSignature = idSignature;
+            return copy;
+        }
+    }
+
+    /**
+     * The versions of both trains after a reconfiguration that moves wagons from one train to another
+     */
+    public static class Transfer {
+        private final TrainVersion fromTrain;
+        private final TrainVersion toTrain;
+
+        private Transfer(TrainVersion fromTrain, TrainVersion toTrain) {
+            this.fromTrain = fromTrain;
+            this.toTrain = toTrain;
+        }
+
+        public TrainVersion getFromTrain() {
+            return fromTrain;
+        }
+
+        public TrainVersion getToTrain() {
+            return toTrain;
+        }
+    }
+
+    private final Locomotive engine;
+    private final String origin;
+    private final String destination;
+    private final Node root;
+
+    /* Representation invariants:
+        engine != null
+        node.size and the totals of every node are the sums over its subtree
+        node.minId, node.maxId and node.idSignature of every node cover exactly the ids in its subtree
+        node.priority >= the priorities of its children for every node
+        all wagons in the version have the same kind
+     */
+
+    public TrainVersion(Locomotive engine, String origin, String destination) {
+        this(engine, origin, destination, null);
+    }
+
+    private TrainVersion(Locomotive engine, String origin, String destination, Node root) {
+        this.engine = engine;
+        this.origin = origin;
+        this.destination = destination;
+        this.root = root;
+    }
+
+    /**
+     * Creates a version with the current configuration of the given train
+     *
+     * @param train
+     * @return the version
+     */
+    public static TrainVersion of(Train train) {
+        return new TrainVersion(train.getEngine(), train.getOrigin(), train.getDestination(),
+                build(train.getFirstWagon()));
+    }
+
+    private TrainVersion withRoot(Node root) {
+        return root == this.root ? this : new TrainVersion(engine, origin, destination, root);
+    }
+
+    public boolean hasWagons() {
+        return root != null;
+    }
+
+    public boolean isPassengerTrain() {
+        return root != null && root.kind == PASSENGER;
+    }
+
+    public boolean isFreightTrain() {
+        return root != null && root.kind == FREIGHT;
+    }
+
+    public Locomotive getEngine() {
+        return engine;
+    }
+
+    public String getOrigin() {
+        return origin;
+    }
+
+    public String getDestination() {
+        return destination;
+    }
+
+    public int getNumberOfWagons() {
+        return size(root);
+    }
+
+    public int getTotalNumberOfSeats() {
+        return root == null ? 0 : root.totalNumberOfSeats;
+    }
+
+    public int getTotalMaxWeight() {
+        return root == null ? 0 : root.totalMaxWeight;
+    }
+
+    /**
+     * @return a detached copy of the last wagon of the version
+     * (return null if the version has no wagons)
+     */
+    public Wagon getLastWagonAttached() {
+        return findWagonAtPosition(getNumberOfWagons());
+    }
+
+    /**
+     * Finds the wagon at the given position (starting at 1 for the first wagon of the train)
+     *
+     * @param position
+     * @return a detached copy of the wagon found at the given position
+     * (return null if the position is not valid for this version)
+     */
+    public Wagon findWagonAtPosition(int position) {
+        if (position <= 0 || position > getNumberOfWagons()) {
+            return null;
+        }
+        int index = position - 1;
+        Node node = root;
+        boolean reversed = false;
+        while (true) {
+            reversed ^= node.reversed;
+            Node left = reversed ? node.right : node.left;
+            int leftSize = size(left);
+            if (index < leftSize) {
+                node = left;
+            } else if (index == leftSize) {
+                return copyOf(node);
+            } else {
+                index -= leftSize + 1;
+                node = reversed ? node.left : node.right;
+            }
+        }
+    }
+
+    /**
+     * Finds the wagon with a given wagonId
+     *
+     * @param wagonId
+     * @return a detached copy of the wagon found
+     * (return null if no wagon was found with the given wagonId)
+     */
+    public Wagon findWagonById(int wagonId) {
+        return findWagonAtPosition(findPosition(wagonId));
+    }
+
+    /**
+     * Finds the position of a wagon by searching the treap, skipping every subtree whose range and signature
+     * of ids show that it cannot hold the wagon. As the wagons of a consist mostly have ids
+     * that are close together, the search usually follows a few paths of O(log n) nodes only.
+     *
+     * @param wagonId
+     * @return the position of the wagon with the given wagonId (starting at 1),
+     * or 0 if no wagon was found with the given wagonId
+     */
+    public int findPosition(int wagonId) {
+        return findPosition(root, false, wagonId, signatureOf(wagonId), 1);
+    }
+
+    /**
+     * @param offset the position of the first wagon of the subtree
+     * @return the position of the wagon in the subtree of node, or 0 if the subtree does not hold the wagon
+     */
+    private static int findPosition(Node node, boolean reversed, int wagonId, long signature, int offset) {
+        if (node == null || wagonId < node.minId || wagonId > node.maxId || (node.idSignature & signature) == 0) {
+            return 0;
+        }
+        reversed ^= node.reversed;
+        Node left = reversed ? node.right : node.left;
+        int position = findPosition(left, reversed, wagonId, signature, offset);
+        if (position > 0) {
+            return position;
+        }
+        position = offset + size(left);
+        if (node.id == wagonId) {
+            return position;
+        }
+        return findPosition(reversed ? node.left : node.right, reversed, wagonId, signature, position + 1);
+    }
+
+    /**
+     * Determines if the given sequence of wagons can be attached to the version
+     * Verifies that the type of wagons match the type of train (Passenger or Freight)
+     * Verifies that the capacity of the engine is sufficient to pull the additional wagons
+     *
+     * @param wagon the first wagon of a sequence of wagons to be attached
+     * @return whether the sequence can be attached
+     */
+    public boolean canAttach(Wagon wagon) {
+        return wagon != null && canAttach(kindOf(wagon), wagon.getSequenceSummary().getNumberOfWagons());
+    }
+
+    private boolean canAttach(byte kind, int numberOfWagons) {
+        if (root != null && root.kind != kind) {
+            return false;
+        }
+        return engine.getMaxWagons() >= getNumberOfWagons() + numberOfWagons;
+    }
+
+    /**
+     * Attaches a copy of the given sequence of wagons to the rear of the version
+     *
+     * @param wagon the first wagon of a sequence of wagons to be attached
+     * @return the new version, or null if the attachment cannot be made
+     * (when the sequence is not compatible or the engine has insufficient capacity)
+     */
+    public TrainVersion attachToRear(Wagon wagon) {
+        return insertAtIndex(getNumberOfWagons(), wagon);
+    }
+
+    /**
+     * Inserts a copy of the given sequence of wagons at the front of the version
+     *
+     * @param wagon the first wagon of a sequence of wagons to be attached
+     * @return the new version, or null if the insertion cannot be made
+     * (when the sequence is not compatible or the engine has insufficient capacity)
+     */
+    public TrainVersion insertAtFront(Wagon wagon) {
+        return insertAtIndex(0, wagon);
+    }
+
+    /**
+     * Inserts a copy of the given sequence of wagons at/before the given wagon position in the version
+     *
+     * @param position
+     * @param wagon    the first wagon of a sequence of wagons to be attached
+     * @return the new version, or null if the insertion cannot be made
+     * (when the sequence is not compatible of the engine has insufficient capacity
+     * or the given position is not valid in this version)
+     */
+    public TrainVersion insertAtPosition(int position, Wagon wagon) {
+        if (position <= 0 || position > Math.max(1, getNumberOfWagons())) {
+            return null;
+        }
+        return insertAtIndex(position - 1, wagon);
+    }
+
+    private TrainVersion insertAtIndex(int index, Wagon wagon) {
+        if (!canAttach(wagon)) {
+            return null;
+        }
+        Node[] parts = split(root, index);
+        return withRoot(merge(merge(parts[0], build(wagon)), parts[1]));
+    }
+
+    /**
+     * Removes one wagon with the given wagonId from this version
+     * and attaches it at the rear of the given toTrain
+     *
+     * @param wagonId
+     * @param toTrain
+     * @return the new versions of both trains, or null if the move cannot be made
+     * (when the wagon cannot be found, or the trains are not compatible
+     * or the engine of toTrain has insufficient capacity)
+     */
+    public Transfer moveOneWagon(int wagonId, TrainVersion toTrain) {
+        int position = findPosition(wagonId);
+        if (position == 0 || !toTrain.canAttach(root.kind, 1)) {
+            return null;
+        }
+        Node[] front = split(root, position - 1);
+        Node[] rest = split(front[1], 1);
+        return new Transfer(withRoot(merge(front[0], rest[1])), toTrain.withRoot(merge(toTrain.root, rest[0])));
+    }
+
+    /**
+     * Splits this version before the given position and moves the complete sequence
+     * of wagons from the given position to the rear of toTrain
+     *
+     * @param position
+     * @param toTrain
+     * @return the new versions of both trains, or null if the split cannot be made
+     * (when the position is not valid for this version, or the trains are not compatible
+     * or the engine of toTrain has insufficient capacity)
+     */
+    public Transfer splitAtPosition(int position, TrainVersion toTrain) {
+        int numberOfWagons = getNumberOfWagons();
+        if (position <= 0 || position > numberOfWagons
+                || !toTrain.canAttach(root.kind, numberOfWagons - position + 1)) {
+            return null;
+        }
+        Node[] parts = split(root, position - 1);
+        return new Transfer(withRoot(parts[0]), toTrain.withRoot(merge(toTrain.root, parts[1])));
+    }
+
+    /**
+     * Reverses the sequence of wagons, in constant time
+     *
+     * @return the new version
+     */
+    public TrainVersion reverse() {
+        return withRoot(flipped(root));
+    }
+
+    /**
+     * Creates a Train with new wagons that have the properties of the wagons of this version
+     *
+     * @return the new train
+     */
+    public Train toTrain() {
+        Train train = new Train(engine, origin, destination);
+        Wagon first = null;
+        Wagon last = null;
+        for (Node node : inOrder()) {
+            Wagon wagon = copyOf(node);
+            if (first == null) {
+                first = wagon;
+            } else {
+                last.attachTail(wagon);
+            }
+            last = wagon;
+        }
+        train.setFirstWagon(first);
+        return train;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder wagons = new StringBuilder();
+        for (Node node : inOrder()) {
+            wagons.append("[Wagon-").append(node.id).append(']');
+        }
+        return engine.toString() +
+                wagons +
+                " with " +
+                getNumberOfWagons() +
+                " wagons from " +
+                origin +
+                " to " +
+                destination;
+    }
+
+    private static byte kindOf(Wagon wagon) {
+        return wagon instanceof PassengerWagon ? PASSENGER : FREIGHT;
+    }
+
+    private static int valueOf(Wagon wagon) {
+        return wagon instanceof PassengerWagon
+                ? ((PassengerWagon) wagon).getNumberOfSeats() : ((FreightWagon) wagon).getMaxWeight();
+    }
+
+    private static Wagon copyOf(Node node) {
+        return node.kind == PASSENGER ? new PassengerWagon(node.id, node.value) : new FreightWagon(node.id, node.value);
+    }
+
+    /**
+     * @return a single bit out of 64, chosen by a hash of the id
+     */
+    private static long signatureOf(int id) {
+        return 1L << ((id * 0x9E3779B9) >>> 26);
+    }
+
+    private static int size(Node node) {
+        return node == null ? 0 : node.size;
+    }
+
+    /**
+     * Recomputes the size and totals of a new node from its children
+     */
+    private static void update(Node node) {
+        node.size = 1 + size(node.left) + size(node.right);
+        node.totalNumberOfSeats = node.kind == PASSENGER ? node.value : 0;
+        node.totalMaxWeight = node.kind == FREIGHT ? node.value : 0;
+        node.minId = node.id;
+        node.maxId = node.id;
+        node.idSignature = signatureOf(node.id);
+        if (node.left != null) {
+            addSubtree(node, node.left);
+        }
+        if (node.right != null) {
+            addSubtree(node, node.right);
+        }
+    }
+
+    /**
+     * Adds the totals and the ids of the subtree of a child to a new node
+     */
+    private static void addSubtree(Node node, Node child) {
+        node.totalNumberOfSeats += child.totalNumberOfSeats;
+        node.totalMaxWeight += child.totalMaxWeight;
+        node.minId = Math.min(node.minId, child.minId);
+        node.maxId = Math.max(node.maxId, child.maxId);
+        node.idSignature |= child.idSignature;
+    }
+
+    /**
+     * @return a copy of the node that mirrors its subtree
+     */
+    private static Node flipped(Node node) {
+        if (node == null) {
+            return null;
+        }
+        Node copy = node.copy();
+        copy.reversed = !node.reversed;
+        return copy;
+    }
+
+    /**
+     * @return a copy of the node that is not marked as reversed, and of which the children may be replaced
+     */
+    private static Node unfolded(Node node) {
+        Node copy = node.copy();
+        if (node.reversed) {
+            copy.reversed = false;
+            copy.left = flipped(node.right);
+            copy.right = flipped(node.left);
+        }
+        return copy;
+    }
+
+    /**
+     * Splits a subtree into the wagons before the given index and the wagons from the given index,
+     * copying the nodes on the path to the index
+     *
+     * @return the roots of both parts
+     */
+    private static Node[] split(Node node, int index) {
+        if (node == null) {
+            return new Node[2];
+        }
+        Node copy = unfolded(node);
+        Node[] parts;
+        if (index <= size(copy.left)) {
+            parts = split(copy.left, index);
+            copy.left = parts[1];
+            parts[1] = copy;
+        } else {
+            parts = split(copy.right, index - size(copy.left) - 1);
+            copy.right = parts[0];
+            parts[0] = copy;
+        }
+        update(copy);
+        return parts;
+    }
+
+    /**
+     * Concatenates two subtrees, copying the nodes on the paths where they are joined
+     */
+    private static Node merge(Node front, Node rear) {
+        if (front == null) {
+            return rear;
+        }
+        if (rear == null) {
+            return front;
+        }
+        Node copy;
+        if (front.priority > rear.priority) {
+            copy = unfolded(front);
+            copy.right = merge(copy.right, rear);
+        } else {
+            copy = unfolded(rear);
+            copy.left = merge(front, copy.left);
+        }
+        update(copy);
+        return copy;
+    }
+
+    /**
+     * Builds a treap of the sequence of wagons from the given wagon in O(n),
+     * by keeping the right spine of the tree built so far on a stack
+     */
+    private static Node build(Wagon wagon) {
+        Deque<Node> spine = new ArrayDeque<>();
+        for (; wagon != null; wagon = wagon.getNextWagon()) {
+            Node node = new Node(wagon);
+            Node last = null;
+            while (!spine.isEmpty() && spine.peek().priority < node.priority) {
+                last = spine.pop();
+                update(last);
+            }
+            node.left = last;
+            if (!spine.isEmpty()) {
+                spine.peek().right = node;
+            }
+            spine.push(node);
+        }
+        Node root = null;
+        while (!spine.isEmpty()) {
+            root = spine.pop();
+            update(root);
+        }
+        return root;
+    }
+
+    /**
+     * @return the nodes of the version in the order of the train
+     */
+    private Iterable<Node> inOrder() {
+        Deque<Node> nodes = new ArrayDeque<>(getNumberOfWagons());
+        addInOrder(root, false, nodes);
+        return nodes;
+    }
+
+    private static void addInOrder(Node node, boolean reversed, Deque<Node> nodes) {
+        if (node == null) {
+            return;
+        }
+        reversed ^= node.reversed;
+        addInOrder(reversed ? node.right : node.left, reversed, nodes);
+        nodes.addLast(node);
+        addInOrder(reversed ? node.left : node.right, reversed, nodes);
+    }
+}
@@ -1,6 +1,6 @@
 package models;
 
-public class Wagon {
+public abstract class Wagon {
     protected int id;               // some unique ID of a Wagon
     private Wagon nextWagon;        // another wagon that is appended at the tail of this wagon
     // a.k.a. the successor of this wagon in a sequence
@@ -11,10 +11,14 @@ public class Wagon {
     // a.k.a. the predecessor of this wagon in a sequence
     // set to null if no predecessor is connected
 
+    private SequenceSummary summary;
+    // the summary header of the sequence that this wagon is part of
+    // shared by all wagons of the sequence, or null if no valid summary has been made
 
     // representation invariant propositions:
     // tail-connection-invariant:   wagon.nextWagon == null or wagon == wagon.nextWagon.previousWagon
     // front-connection-invariant:  wagon.previousWagon == null or wagon = wagon.previousWagon.nextWagon
+    // summary-invariant:           every valid summary is referred to by exactly the wagons of its sequence
 
     protected Wagon(int wagonId) {
         this.id = wagonId;
@@ -33,13 +37,63 @@ public class Wagon {
     }
 
     public void setNextWagon(Wagon nextWagon) {
+        dropSummary();
         this.nextWagon = nextWagon;
     }
 
     public void setPreviousWagon(Wagon previousWagon) {
+        dropSummary();
         this.previousWagon = previousWagon;
     }
 
+    /**
+     * Returns the summary of the sequence of wagons from this wagon until its final successor.
+     * The summary is kept with the sequence if this wagon is the first wagon of the sequence,
+     * so repeated requests take constant time as long as the sequence is not reconfigured
+     * other than by attaching single wagons at its ends or by detaching tails from it.
+     *
+     * @return the summary
+     */
+    public SequenceSummary getSequenceSummary() {
+        SequenceSummary current = validSummary();
+        if (current != null && current.getFirstWagon() == this) {
+            return current;
+        }
+        SequenceSummary computed = new SequenceSummary(this);
+        if (!hasPreviousWagon()) {
+            for (Wagon wagon = this; wagon != null; wagon = wagon.getNextWagon()) {
+                wagon.summary = computed;
+            }
+        }
+        return computed;
+    }
+
+    /**
+     * @return whether the summary of the sequence from this wagon is kept with this wagon,
+     * so getSequenceSummary() does not need to walk the sequence
+     */
+    boolean hasSequenceSummary() {
+        SequenceSummary current = validSummary();
+        return current != null && current.getFirstWagon() == this;
+    }
+
+    /**
+     * @return the summary of the sequence of this wagon, or null if it has no valid summary
+     */
+    private SequenceSummary validSummary() {
+        return summary != null && summary.isValid() ? summary : null;
+    }
+
+    /**
+     * Invalidates the summary of the sequence of this wagon, if any
+     */
+    private void dropSummary() {
+        if (summary != null) {
+            summary.invalidate();
+            summary = null;
+        }
+    }
+
     /**
      * @return whether this wagon has a wagon appended at the tail
      */
@@ -60,12 +114,14 @@ public class Wagon {
      * @return the wagon
      */
     public Wagon getLastWagonAttached() {
-
+        long start = TrainMetrics.start();
         Wagon lastWagon = this;
+        int hops = 0;
         while (lastWagon.hasNextWagon()) {
             lastWagon = lastWagon.getNextWagon();
+            hops++;
         }
-
+        TrainMetrics.record(TrainMetrics.Operation.WAGON_GET_LAST_WAGON_ATTACHED, start, hops);
         return lastWagon;
     }
 
@@ -74,7 +130,7 @@ public class Wagon {
      * excluding this wagon itself.
      */
     public int getTailLength() {
-
+        long start = TrainMetrics.start();
         Wagon wagon = this;
         int length = 0;
 
@@ -83,6 +139,7 @@ public class Wagon {
             length++;
         }
 
+        TrainMetrics.record(TrainMetrics.Operation.WAGON_GET_TAIL_LENGTH, start, length);
         return length;
     }
 
@@ -105,8 +162,24 @@ public class Wagon {
             throw new IllegalStateException("ERROR: Wagon " + tail + " has previous wagon " + tail.getPreviousWagon() +
                     " and cannot be attached");
         } else {
-            setNextWagon(tail);
-            tail.setPreviousWagon(this);
+            SequenceSummary front = validSummary();
+            SequenceSummary rear = tail.validSummary();
+            nextWagon = tail;
+            tail.previousWagon = this;
+            if (front != null && !tail.hasNextWagon()) {
+                // a single wagon has been attached at the end of a summarized sequence
+                tail.dropSummary();
+                front.append(tail);
+                tail.summary = front;
+            } else if (rear != null && !hasPreviousWagon()) {
+                // a single wagon has been attached in front of a summarized sequence
+                dropSummary();
+                rear.prepend(this);
+                summary = rear;
+            } else {
+                dropSummary();
+                tail.dropSummary();
+            }
         }
     }
 
@@ -119,14 +192,47 @@ public class Wagon {
     public Wagon detachTail() {
         if (hasNextWagon()) {
             Wagon tail = getNextWagon();
-            setNextWagon(null);
-            tail.setPreviousWagon(null);
+            SequenceSummary current = validSummary();
+            nextWagon = null;
+            tail.previousWagon = null;
+            if (current != null && current.getFirstWagon() == this) {
+                // the tail keeps the summary of the sequence, and this single wagon gets a new one
+                current.removeFirst(tail);
+                summary = new SequenceSummary(this);
+            } else if (current != null && current.getLastWagon() == tail) {
+                // the front keeps the summary of the sequence, and the single tail wagon gets a new one
+                current.removeLast(this);
+                tail.summary = new SequenceSummary(tail);
+            } else if (current != null) {
+                splitSummary(current, tail);
+            }
             return tail;
         } else {
             return null;
         }
     }
 
+    /**
+     * Divides the summary of a sequence that has just been split between this wagon and the tail.
+     * The shorter part gets a new summary and the longer part keeps the summary of the sequence,
+     * so the split takes time in proportion to the length of the shorter part only.
+     * The shorter part is found by walking both parts from their far ends at once.
+     */
+    private void splitSummary(SequenceSummary current, Wagon tail) {
+        Wagon forward = current.getFirstWagon();
+        Wagon backward = current.getLastWagon();
+        while (forward != this && backward != tail) {
+            forward = forward.getNextWagon();
+            backward = backward.getPreviousWagon();
+        }
+        boolean frontIsShorter = forward == this;
+        SequenceSummary shorter = new SequenceSummary(frontIsShorter ? current.getFirstWagon() : tail);
+        current.removePart(shorter, frontIsShorter ? tail : this);
+        for (Wagon wagon = shorter.getFirstWagon(); wagon != null; wagon = wagon.getNextWagon()) {
+            wagon.summary = shorter;
+        }
+    }
+
     /**
      * Detaches this wagon from the wagon in front of it.
      * No action if this wagon has no previous wagon attached.
@@ -137,8 +243,7 @@ public class Wagon {
     public Wagon detachFront() {
         if (hasPreviousWagon()) {
             Wagon front = getPreviousWagon();
-            setPreviousWagon(null);
-            front.setNextWagon(null);
+            front.detachTail();
             return front;
         } else {
             return null;
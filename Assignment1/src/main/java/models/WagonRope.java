@@ -0,0 +1,244 @@
+package models;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A positional index over a sequence of wagons, implemented as an implicit treap:
+ * a randomly balanced binary tree ordered by position, in which every node knows the size of its subtree.
+ * Finding, inserting or removing at a position takes O(log n) expected time,
+ * plus O(k) to index or unindex a sequence of k wagons.
+ */
+class WagonRope {
+    private static class Node {
+        final Wagon wagon;
+        final int priority;
+        int size = 1;
+        Node left, right, parent;
+
+        Node(Wagon wagon) {
+            this.wagon = wagon;
+            this.priority = ThreadLocalRandom.current().nextInt();
+        }
+    }
+
+    private Node root;
+    private final IntMap<Node> nodesById = new IntMap<>();
+
+    /* Representation invariants:
+        root == null || root.parent == null
+        node.size == 1 + size(node.left) + size(node.right) for every node
+        node.priority >= the priorities of its children for every node
+        nodesById holds exactly the nodes of the tree
+     */
+
+    int size() {
+        return size(root);
+    }
+
+    /**
+     * @param index the position in the sequence, starting at 0
+     * @return the wagon at the given index, or null if the index is not valid
+     */
+    Wagon get(int index) {
+        if (index < 0 || index >= size()) {
+            return null;
+        }
+        Node node = root;
+        while (true) {
+            int leftSize = size(node.left);
+            if (index < leftSize) {
+                node = node.left;
+            } else if (index == leftSize) {
+                return node.wagon;
+            } else {
+                index -= leftSize + 1;
+                node = node.right;
+            }
+        }
+    }
+
+    /**
+     * @param wagon
+     * @return the index of the wagon in the sequence, or -1 if the wagon has not been indexed
+     */
+    int indexOf(Wagon wagon) {
+        Node node = nodesById.get(wagon.getId());
+        if (node == null || node.wagon != wagon) {
+            return -1;
+        }
+        int index = size(node.left);
+        while (node.parent != null) {
+            if (node == node.parent.right) {
+                index += size(node.parent.left) + 1;
+            }
+            node = node.parent;
+        }
+        return index;
+    }
+
+    /**
+     * Indexes the sequence of wagons from the given wagon until its final successor
+     * at the given index, shifting the wagons from that index onwards.
+     * The sequence must not yet be connected to the wagons that it is inserted before.
+     *
+     * @param index the position of the first inserted wagon, between 0 and size()
+     * @param first the first wagon of the sequence to be indexed
+     */
+    void insert(int index, Wagon first) {
+        insert(index, first, null);
+    }
+
+    /**
+     * Indexes the sequence of wagons from the given wagon until the given end
+     * at the given index, shifting the wagons from that index onwards.
+     *
+     * @param index the position of the first inserted wagon, between 0 and size()
+     * @param first the first wagon of the sequence to be indexed
+     * @param end   the successor of the last wagon to be indexed, or null to index until the final successor
+     */
+    void insert(int index, Wagon first, Wagon end) {
+        Node[] parts = split(root, index);
+        root = merge(merge(parts[0], build(first, end)), parts[1]);
+        root.parent = null;
+    }
+
+    /**
+     * Removes the wagon from the index, shifting all wagons behind it one position forward
+     *
+     * @param wagon
+     */
+    void remove(Wagon wagon) {
+        int index = indexOf(wagon);
+        if (index >= 0) {
+            Node[] front = split(root, index);
+            Node[] rear = split(front[1], 1);
+            nodesById.remove(wagon.getId());
+            root = merge(front[0], rear[1]);
+            if (root != null) {
+                root.parent = null;
+            }
+        }
+    }
+
+    /**
+     * Removes all wagons from the given index onwards from the index
+     *
+     * @param index
+     */
+    void truncate(int index) {
+        Node[] parts = split(root, index);
+        root = parts[0];
+        unregister(parts[1]);
+    }
+
+    void clear() {
+        root = null;
+        nodesById.clear();
+    }
+
+    private static int size(Node node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private static void update(Node node) {
+        node.size = 1 + size(node.left) + size(node.right);
+        if (node.left != null) {
+            node.left.parent = node;
+        }
+        if (node.right != null) {
+            node.right.parent = node;
+        }
+    }
+
+    /**
+     * Splits the tree into the first k nodes and the remaining nodes
+     *
+     * @return the roots of both parts, without parent
+     */
+    private static Node[] split(Node node, int k) {
+        if (node == null) {
+            return new Node[]{null, null};
+        }
+        Node[] parts;
+        if (k <= size(node.left)) {
+            parts = split(node.left, k);
+            node.left = parts[1];
+            update(node);
+            parts[1] = node;
+        } else {
+            parts = split(node.right, k - size(node.left) - 1);
+            node.right = parts[0];
+            update(node);
+            parts[0] = node;
+        }
+        for (Node part : parts) {
+            if (part != null) {
+                part.parent = null;
+            }
+        }
+        return parts;
+    }
+
+    private static Node merge(Node front, Node rear) {
+        if (front == null) {
+            return rear;
+        } else if (rear == null) {
+            return front;
+        } else if (front.priority > rear.priority) {
+            front.right = merge(front.right, rear);
+            update(front);
+            return front;
+        } else {
+            rear.left = merge(front, rear.left);
+            update(rear);
+            return rear;
+        }
+    }
+
+    /**
+     * Builds a treap of the sequence of wagons in linear time,
+     * by keeping the right spine of the tree built so far on a stack
+     */
+    private Node build(Wagon first, Wagon end) {
+        Deque<Node> spine = new ArrayDeque<>();
+        for (Wagon wagon = first; wagon != end; wagon = wagon.getNextWagon()) {
+            Node node = new Node(wagon);
+            nodesById.put(wagon.getId(), node);
+            Node lastPopped = null;
+            while (!spine.isEmpty() && spine.peek().priority < node.priority) {
+                lastPopped = spine.pop();
+            }
+            node.left = lastPopped;
+            if (!spine.isEmpty()) {
+                spine.peek().right = node;
+            }
+            spine.push(node);
+        }
+        Node top = spine.peekLast();
+        if (top != null) {
+            updateAll(top);
+            top.parent = null;
+        }
+        return top;
+    }
+
+    private static void updateAll(Node node) {
+        if (node.left != null) {
+            updateAll(node.left);
+        }
+        if (node.right != null) {
+            updateAll(node.right);
+        }
+        update(node);
+    }
+
+    private void unregister(Node node) {
+        if (node != null) {
+            nodesById.remove(node.wagon.getId());
+            unregister(node.left);
+            unregister(node.right);
+        }
+    }
+}
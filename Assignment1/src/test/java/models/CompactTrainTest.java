@@ -0,0 +1,103 @@
+package models;
+
+import org.junit.jupiter.api.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@TestMethodOrder(MethodOrderer.MethodName.class)
+public class CompactTrainTest {
+    CompactTrain passengerTrain, trainWithoutWagons, freightTrain;
+
+    @BeforeEach
+    private void setup() {
+        Locomotive rembrandt = new Locomotive(24531, 7);
+        passengerTrain = new CompactTrain(rembrandt, "Amsterdam", "Paris");
+        passengerTrain.attachToRear(new PassengerWagon(8001, 32));
+        passengerTrain.attachToRear(new PassengerWagon(8002, 32));
+        passengerTrain.attachToRear(new PassengerWagon(8003, 18));
+        passengerTrain.attachToRear(new PassengerWagon(8004, 44));
+        passengerTrain.attachToRear(new PassengerWagon(8005, 44));
+        passengerTrain.attachToRear(new PassengerWagon(8006, 44));
+        passengerTrain.attachToRear(new PassengerWagon(8007, 40));
+
+        Locomotive vanGogh = new Locomotive(29123, 7);
+        trainWithoutWagons = new CompactTrain(vanGogh, "Amsterdam", "London");
+
+        Locomotive clusius = new Locomotive(63427, 50);
+        freightTrain = new CompactTrain(clusius, "Amsterdam", "Berlin");
+        freightTrain.attachToRear(new FreightWagon(9001, 50000));
+        freightTrain.attachToRear(new FreightWagon(9002, 40000));
+        freightTrain.attachToRear(new FreightWagon(9003, 30000));
+    }
+
+    @Test
+    public void T01_cumulativePropertiesShouldMatchTheWagons() {
+        assertTrue(passengerTrain.isPassengerTrain());
+        assertTrue(freightTrain.isFreightTrain());
+        assertFalse(trainWithoutWagons.hasWagons());
+        assertEquals(7, passengerTrain.getNumberOfWagons());
+        assertEquals(254, passengerTrain.getTotalNumberOfSeats());
+        assertEquals(0, passengerTrain.getTotalMaxWeight());
+        assertEquals(120000, freightTrain.getTotalMaxWeight());
+        assertEquals(0, freightTrain.getTotalNumberOfSeats());
+        assertEquals(8007, passengerTrain.getLastWagonAttached().getId());
+        assertNull(trainWithoutWagons.getLastWagonAttached());
+    }
+
+    @Test
+    public void T02_shouldFindWagonsByPositionAndId() {
+        assertEquals(8001, passengerTrain.findWagonAtPosition(1).getId());
+        assertEquals(8007, passengerTrain.findWagonAtPosition(7).getId());
+        assertNull(passengerTrain.findWagonAtPosition(8));
+        assertNull(passengerTrain.findWagonAtPosition(0));
+        assertEquals(40000, ((FreightWagon) freightTrain.findWagonById(9002)).getMaxWeight());
+        assertNull(freightTrain.findWagonById(9000));
+    }
+
+    @Test
+    public void T03_shouldCheckCompatibilityAndCapacity() {
+        assertFalse(freightTrain.attachToRear(new PassengerWagon(8011, 50)));
+        assertFalse(passengerTrain.insertAtFront(new PassengerWagon(8011, 50)));
+        assertFalse(passengerTrain.moveOneWagon(8006, freightTrain));
+        assertEquals(7, passengerTrain.getNumberOfWagons());
+    }
+
+    @Test
+    public void T04_shouldInsertAtPosition() {
+        Wagon wagon = new FreightWagon(9011, 60000);
+        wagon.attachTail(new FreightWagon(9012, 60000));
+        assertTrue(freightTrain.insertAtPosition(2, wagon));
+        assertTrue(freightTrain.insertAtFront(new FreightWagon(9000, 10000)));
+        assertEquals("[Loc-63427][Wagon-9000][Wagon-9001][Wagon-9011][Wagon-9012][Wagon-9002][Wagon-9003]"
+                + " with 6 wagons from Amsterdam to Berlin", freightTrain.toString());
+        assertEquals(250000, freightTrain.getTotalMaxWeight());
+        assertFalse(freightTrain.insertAtPosition(8, new FreightWagon(9013, 1)));
+    }
+
+    @Test
+    public void T05_shouldSplitAndMoveWagons() {
+        assertTrue(passengerTrain.splitAtPosition(5, trainWithoutWagons));
+        assertEquals(4, passengerTrain.getNumberOfWagons());
+        assertEquals(3, trainWithoutWagons.getNumberOfWagons());
+        assertEquals(126, passengerTrain.getTotalNumberOfSeats());
+        assertTrue(trainWithoutWagons.moveOneWagon(8006, passengerTrain));
+        assertEquals(8006, passengerTrain.findWagonAtPosition(5).getId());
+        assertEquals(8007, trainWithoutWagons.getLastWagonAttached().getId());
+        assertTrue(passengerTrain.moveOneWagon(8001, passengerTrain));
+        assertEquals(8002, passengerTrain.findWagonAtPosition(1).getId());
+        assertEquals(8001, passengerTrain.getLastWagonAttached().getId());
+    }
+
+    @Test
+    public void T06_shouldReverseAndConvert() {
+        passengerTrain.reverse();
+        assertEquals(8007, passengerTrain.findWagonAtPosition(1).getId());
+        assertEquals(8001, passengerTrain.findWagonAtPosition(7).getId());
+
+        Train train = passengerTrain.toTrain();
+        assertEquals(7, train.getNumberOfWagons());
+        assertEquals(254, train.getTotalNumberOfSeats());
+        assertEquals(8007, train.getFirstWagon().getId());
+        assertEquals(passengerTrain.toString(), CompactTrain.of(train).toString());
+    }
+}
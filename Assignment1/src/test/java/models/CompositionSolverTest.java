@@ -0,0 +1,120 @@
+package models;
+
+import org.junit.jupiter.api.*;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@TestMethodOrder(MethodOrderer.MethodName.class)
+public class CompositionSolverTest {
+    List<Locomotive> locomotives;
+    List<Wagon> wagons;
+
+    @BeforeEach
+    private void setup() {
+        locomotives = new ArrayList<>(List.of(
+                new Locomotive(24531, 7), new Locomotive(29123, 3),
+                new Locomotive(63427, 50), new Locomotive(11111, 2)));
+        wagons = new ArrayList<>(List.of(
+                new PassengerWagon(8001, 32), new PassengerWagon(8002, 32),
+                new PassengerWagon(8003, 18), new PassengerWagon(8004, 44),
+                new PassengerWagon(8005, 44), new PassengerWagon(8006, 40),
+                new FreightWagon(9001, 50000), new FreightWagon(9002, 40000),
+                new FreightWagon(9003, 30000)));
+    }
+
+    private static TreeMap<Integer, Integer> counts(int... capacitiesAndCounts) {
+        TreeMap<Integer, Integer> counts = new TreeMap<>(Comparator.reverseOrder());
+        for (int i = 0; i < capacitiesAndCounts.length; i += 2) {
+            counts.put(capacitiesAndCounts[i], capacitiesAndCounts[i + 1]);
+        }
+        return counts;
+    }
+
+    @Test
+    public void T01_selectShouldTakeTheFewestAndSmallestItems() {
+        // two items are needed; 40 + 32 = 72 is the smallest pair that reaches 70
+        assertEquals(Map.of(40, 1, 32, 1), CompositionSolver.select(counts(44, 2, 40, 1, 32, 2, 18, 1), 70));
+        // 40 + 40 = 80 beats 44 + 40 = 84 and 44 + 44 = 88
+        assertEquals(Map.of(40, 2), CompositionSolver.select(counts(44, 2, 40, 2, 10, 5), 80));
+        assertEquals(Map.of(44, 2, 40, 2, 10, 5), CompositionSolver.select(counts(44, 2, 40, 2, 10, 5), 218));
+        assertNull(CompositionSolver.select(counts(44, 2, 40, 2, 10, 5), 219));
+        assertNull(CompositionSolver.select(counts(), 1));
+    }
+
+    @Test
+    public void T02_shouldComposeTrainsForEveryDemand() {
+        CompositionSolver solver = new CompositionSolver(locomotives, wagons);
+        CompositionSolver.Demand paris = new CompositionSolver.Demand("Amsterdam", "Paris", 100, 0);
+        CompositionSolver.Demand berlin = new CompositionSolver.Demand("Amsterdam", "Berlin", 0, 60000);
+        CompositionSolver.Demand london = new CompositionSolver.Demand("Amsterdam", "London", 500, 0);
+        Map<CompositionSolver.Demand, List<Train>> trains = solver.compose(List.of(paris, berlin, london));
+
+        // three wagons: 44 + 40 + 18 = 102 is the smallest triple to reach 100, on the 3-wagon locomotive
+        List<Train> parisTrains = trains.get(paris);
+        assertEquals(1, parisTrains.size());
+        assertEquals(29123, parisTrains.get(0).getEngine().getLocNumber());
+        assertEquals(3, parisTrains.get(0).getNumberOfWagons());
+        assertEquals(102, parisTrains.get(0).getTotalNumberOfSeats());
+        assertEquals("Paris", parisTrains.get(0).getDestination());
+
+        // two freight wagons: 40000 + 30000 is the smallest pair to reach 60000, on the 2-wagon locomotive
+        List<Train> berlinTrains = trains.get(berlin);
+        assertEquals(1, berlinTrains.size());
+        assertEquals(11111, berlinTrains.get(0).getEngine().getLocNumber());
+        assertEquals(70000, berlinTrains.get(0).getTotalMaxWeight());
+
+        assertTrue(trains.get(london).isEmpty());
+        assertEquals(2, solver.getNumberOfLocomotives());
+        assertEquals(4, solver.getNumberOfWagons());
+    }
+
+    @Test
+    public void T03_shouldSpreadWagonsOverMultipleLocomotives() {
+        List<Locomotive> smallLocomotives = new ArrayList<>();
+        for (int locNumber = 1; locNumber <= 10; locNumber++) {
+            smallLocomotives.add(new Locomotive(locNumber, 4));
+        }
+        List<Wagon> passengerWagons = new ArrayList<>();
+        for (int id = 1; id <= 30; id++) {
+            passengerWagons.add(new PassengerWagon(id, 50));
+        }
+        CompositionSolver solver = new CompositionSolver(smallLocomotives, passengerWagons);
+        List<Train> trains = solver.compose(new CompositionSolver.Demand("Amsterdam", "Paris", 900, 0));
+        assertEquals(5, trains.size());
+        assertEquals(900, trains.stream().mapToInt(Train::getTotalNumberOfSeats).sum());
+        assertTrue(trains.stream().allMatch(train -> train.getNumberOfWagons() <= 4));
+    }
+
+    @Test
+    public void T04_shouldComposeLargePoolsQuickly() {
+        List<Locomotive> manyLocomotives = new ArrayList<>();
+        for (int locNumber = 1; locNumber <= 2000; locNumber++) {
+            manyLocomotives.add(new Locomotive(locNumber, 10 + locNumber % 7 * 5));
+        }
+        List<Wagon> manyWagons = new ArrayList<>();
+        for (int id = 1; id <= 40000; id++) {
+            manyWagons.add(id % 2 == 0 ? new PassengerWagon(id, 20 + id % 13 * 4)
+                    : new FreightWagon(id, 10000 + id % 11 * 2500));
+        }
+        CompositionSolver solver = new CompositionSolver(manyLocomotives, manyWagons);
+        List<CompositionSolver.Demand> demands = new ArrayList<>();
+        for (int route = 0; route < 20; route++) {
+            demands.add(new CompositionSolver.Demand("Amsterdam", "City-" + route, 20000 + route * 7, 5000000 + route * 3));
+        }
+        Map<CompositionSolver.Demand, List<Train>> trains =
+                assertTimeout(Duration.ofSeconds(20), () -> solver.compose(demands));
+        for (CompositionSolver.Demand demand : demands) {
+            List<Train> routeTrains = trains.get(demand);
+            assertFalse(routeTrains.isEmpty());
+            assertTrue(routeTrains.stream().mapToInt(Train::getTotalNumberOfSeats).sum() >= demand.getNumberOfSeats());
+            assertTrue(routeTrains.stream().mapToInt(Train::getTotalMaxWeight).sum() >= demand.getMaxWeight());
+        }
+    }
+}
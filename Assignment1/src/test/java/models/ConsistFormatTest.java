@@ -0,0 +1,86 @@
+package models;
+
+import org.junit.jupiter.api.*;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@TestMethodOrder(MethodOrderer.MethodName.class)
+public class ConsistFormatTest {
+    Train passengerTrain, trainWithoutWagons, freightTrain;
+
+    @BeforeEach
+    private void setup() {
+        Locomotive rembrandt = new Locomotive(24531, 7);
+        passengerTrain = new Train(rembrandt, "Amsterdam", "Paris");
+        passengerTrain.attachToRear(new PassengerWagon(8001, 32));
+        passengerTrain.attachToRear(new PassengerWagon(8002, 32));
+        passengerTrain.attachToRear(new PassengerWagon(8003, 18));
+
+        Locomotive vanGogh = new Locomotive(29123, 7);
+        trainWithoutWagons = new Train(vanGogh, "Amsterdam", "Londen");
+
+        Locomotive clusius = new Locomotive(63427, 50);
+        freightTrain = new Train(clusius, "Amsterdam", "Köln");
+        freightTrain.attachToRear(new FreightWagon(9001, 50000));
+        freightTrain.attachToRear(new FreightWagon(9002, 40000));
+    }
+
+    @Test
+    public void T01_ShouldRestoreTheTrain() {
+        ByteBuffer buffer = ConsistFormat.write(passengerTrain);
+        assertEquals(ConsistFormat.sizeOf(passengerTrain), buffer.remaining());
+        ConsistFormat.View view = ConsistFormat.read(buffer);
+        assertFalse(buffer.hasRemaining());
+        assertEquals(3, view.getNumberOfWagons());
+        assertEquals(8002, view.getWagonId(2));
+        assertEquals(18, view.getCapacity(3));
+        assertEquals(82, view.getTotalNumberOfSeats());
+        assertEquals(0, view.getTotalMaxWeight());
+        assertEquals(passengerTrain.toString(), view.toTrain().toString());
+        assertEquals(7, view.toTrain().getEngine().getMaxWagons());
+    }
+
+    @Test
+    public void T02_ShouldReadConsecutiveTrainsFromOneBuffer() {
+        passengerTrain.reverse();
+        ByteBuffer buffer = ByteBuffer.allocateDirect(ConsistFormat.sizeOf(passengerTrain)
+                + ConsistFormat.sizeOf(trainWithoutWagons) + ConsistFormat.sizeOf(freightTrain));
+        ConsistFormat.write(passengerTrain, buffer);
+        ConsistFormat.write(trainWithoutWagons, buffer);
+        ConsistFormat.write(freightTrain, buffer);
+        buffer.flip();
+        assertEquals(passengerTrain.toString(), ConsistFormat.read(buffer).toTrain().toString());
+        ConsistFormat.View empty = ConsistFormat.read(buffer);
+        assertFalse(empty.toTrain().hasWagons());
+        assertEquals("Londen", empty.getDestination());
+        ConsistFormat.View freight = ConsistFormat.read(buffer);
+        assertEquals("Köln", freight.getDestination());
+        assertEquals(90000, freight.getTotalMaxWeight());
+        assertTrue(freight.isFreightTrain());
+    }
+
+    @Test
+    public void T03_ShouldRejectInvalidBuffers() {
+        assertThrows(IllegalArgumentException.class, () -> ConsistFormat.read(ByteBuffer.allocate(16)));
+        ByteBuffer truncated = ConsistFormat.write(freightTrain);
+        truncated.limit(truncated.limit() - 1);
+        assertThrows(IllegalArgumentException.class, () -> ConsistFormat.read(truncated));
+        assertThrows(BufferOverflowException.class,
+                () -> ConsistFormat.write(freightTrain, ByteBuffer.allocate(ConsistFormat.sizeOf(freightTrain) - 1)));
+    }
+
+    @Test
+    public void T04_ShouldRestoreLongTrains() {
+        Train longTrain = new Train(new Locomotive(1, 200000), "Amsterdam", "Paris");
+        for (int id = 1; id <= 100000; id++) {
+            longTrain.attachToRear(new FreightWagon(id, id % 1000));
+        }
+        Train restored = ConsistFormat.read(ConsistFormat.write(longTrain)).toTrain();
+        assertEquals(100000, restored.getNumberOfWagons());
+        assertEquals(longTrain.getTotalMaxWeight(), restored.getTotalMaxWeight());
+        assertEquals(54321, restored.findWagonAtPosition(54321).getId());
+    }
+}
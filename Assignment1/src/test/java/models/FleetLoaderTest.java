@@ -0,0 +1,89 @@
+package models;
+
+import org.junit.jupiter.api.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@TestMethodOrder(MethodOrderer.MethodName.class)
+public class FleetLoaderTest {
+    static final String FLEET =
+            "# two trains\n" +
+            "L;24531;7;Amsterdam;Paris\n" +
+            "P;8001;32\n" +
+            "P;8002;32\n" +
+            "P;8003;18\n" +
+            "\n" +
+            "L;63427;50;Amsterdam;Berlin\n" +
+            "F;9001;50000\n" +
+            "F;9002;40000\n" +
+            "L;29123;7;Amsterdam;London\n";
+
+    @Test
+    public void T01_ShouldLoadAllTrainsFromText() throws IOException {
+        List<Train> trains = FleetLoader.loadCsv(new StringReader(FLEET));
+        assertEquals(3, trains.size());
+        assertEquals("[Loc-24531][Wagon-8001][Wagon-8002][Wagon-8003] with 3 wagons from Amsterdam to Paris",
+                trains.get(0).toString());
+        assertEquals(82, trains.get(0).getTotalNumberOfSeats());
+        assertEquals(90000, trains.get(1).getTotalMaxWeight());
+        assertEquals(9002, trains.get(1).getLastWagonAttached().getId());
+        assertFalse(trains.get(2).hasWagons());
+    }
+
+    @Test
+    public void T02_ShouldRejectInvalidTrains() {
+        assertThrows(IllegalArgumentException.class,
+                () -> FleetLoader.loadCsv(new StringReader("L;1;1;Here;There\nP;1;10\nP;2;10\n")));
+        assertThrows(IllegalArgumentException.class,
+                () -> FleetLoader.loadCsv(new StringReader("L;1;5;Here;There\nP;1;10\nF;2;10\n")));
+        assertThrows(IllegalArgumentException.class,
+                () -> FleetLoader.loadCsv(new StringReader("P;1;10\n")));
+        assertThrows(IllegalArgumentException.class,
+                () -> FleetLoader.loadCsv(new StringReader("L;1;5;Here;There\nP;1;10\nP;1;10\n")));
+        assertThrows(IllegalArgumentException.class,
+                () -> FleetLoader.loadCsv(new StringReader("L;1;5;Here;There\nP;1;10\nL;2;5;There;Here\nP;1;10\n")));
+    }
+
+    @Test
+    public void T03_BinaryFormatShouldRoundTrip() throws IOException {
+        List<Train> trains = FleetLoader.loadCsv(new StringReader(FLEET));
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        FleetLoader.writeBinary(trains, output);
+
+        List<Train> loaded = FleetLoader.loadBinary(new ByteArrayInputStream(output.toByteArray()));
+        assertEquals(trains.size(), loaded.size());
+        for (int i = 0; i < trains.size(); i++) {
+            assertEquals(trains.get(i).toString(), loaded.get(i).toString());
+            assertEquals(trains.get(i).getTotalNumberOfSeats(), loaded.get(i).getTotalNumberOfSeats());
+            assertEquals(trains.get(i).getTotalMaxWeight(), loaded.get(i).getTotalMaxWeight());
+        }
+    }
+
+    @Test
+    public void T04_BinaryFormatShouldKeepMissingPlacesAndRejectDuplicateWagons() throws IOException {
+        Train withoutRoute = new Train(new Locomotive(1, 5), null, "Paris");
+        withoutRoute.attachToRear(new PassengerWagon(8001, 32));
+        Train withoutDestination = new Train(new Locomotive(2, 5), "Amsterdam", null);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        FleetLoader.writeBinary(List.of(withoutRoute, withoutDestination), output);
+
+        List<Train> loaded = FleetLoader.loadBinary(new ByteArrayInputStream(output.toByteArray()));
+        assertNull(loaded.get(0).getOrigin());
+        assertEquals("Paris", loaded.get(0).getDestination());
+        assertEquals("Amsterdam", loaded.get(1).getOrigin());
+        assertNull(loaded.get(1).getDestination());
+
+        Train duplicate = new Train(new Locomotive(3, 5), "Amsterdam", "Paris");
+        duplicate.attachToRear(new PassengerWagon(8001, 40));
+        ByteArrayOutputStream rejected = new ByteArrayOutputStream();
+        assertThrows(IllegalArgumentException.class,
+                () -> FleetLoader.writeBinary(List.of(withoutRoute, duplicate), rejected));
+        assertEquals(0, rejected.size());
+    }
+}
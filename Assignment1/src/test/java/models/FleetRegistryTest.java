@@ -0,0 +1,187 @@
+package models;
+
+import org.junit.jupiter.api.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@TestMethodOrder(MethodOrderer.MethodName.class)
+public class FleetRegistryTest {
+    FleetRegistry registry;
+    Train passengerTrain, trainWithoutWagons, freightTrain;
+
+    @BeforeEach
+    private void setup() {
+        Locomotive rembrandt = new Locomotive(24531, 7);
+        passengerTrain = new Train(rembrandt, "Amsterdam", "Paris");
+        passengerTrain.attachToRear(new PassengerWagon(8001, 32));
+        passengerTrain.attachToRear(new PassengerWagon(8002, 32));
+        passengerTrain.attachToRear(new PassengerWagon(8003, 18));
+
+        Locomotive vanGogh = new Locomotive(29123, 7);
+        trainWithoutWagons = new Train(vanGogh, "Amsterdam", "Paris");
+
+        Locomotive clusius = new Locomotive(63427, 50);
+        freightTrain = new Train(clusius, "Amsterdam", "Berlin");
+        freightTrain.attachToRear(new FreightWagon(9001, 50000));
+        freightTrain.attachToRear(new FreightWagon(9002, 40000));
+
+        registry = new FleetRegistry();
+        registry.addTrain(passengerTrain);
+        registry.addTrain(trainWithoutWagons);
+        registry.addTrain(freightTrain);
+    }
+
+    @Test
+    public void T01_ShouldFindTrainsAndTheirWagons() {
+        assertEquals(3, registry.getNumberOfTrains());
+        assertFalse(registry.addTrain(passengerTrain));
+        assertSame(freightTrain, registry.getTrain(63427));
+        assertSame(passengerTrain, registry.findTrainOfWagon(8002));
+        assertSame(freightTrain, registry.findTrainOfWagon(9001));
+        assertNull(registry.findTrainOfWagon(8011));
+    }
+
+    @Test
+    public void T02_ShouldFollowWagonsBetweenTrains() {
+        Wagon sequence = new PassengerWagon(8004, 44);
+        sequence.attachTail(new PassengerWagon(8005, 44));
+        passengerTrain.insertAtPosition(2, sequence);
+        assertSame(passengerTrain, registry.findTrainOfWagon(8005));
+
+        passengerTrain.reverse();
+        passengerTrain.moveOneWagon(8001, trainWithoutWagons);
+        assertSame(trainWithoutWagons, registry.findTrainOfWagon(8001));
+
+        // the wagons in order are 8003, 8002, 8005, 8004
+        passengerTrain.splitAtPosition(3, trainWithoutWagons);
+        assertSame(trainWithoutWagons, registry.findTrainOfWagon(8005));
+        assertSame(trainWithoutWagons, registry.findTrainOfWagon(8004));
+        assertSame(passengerTrain, registry.findTrainOfWagon(8002));
+
+        passengerTrain.setFirstWagon(new PassengerWagon(8010, 10));
+        assertNull(registry.findTrainOfWagon(8003));
+        assertSame(passengerTrain, registry.findTrainOfWagon(8010));
+
+        // wagons that leave the registry are no longer found
+        Train other = new Train(new Locomotive(1, 10), "Paris", "Amsterdam");
+        trainWithoutWagons.splitAtPosition(1, other);
+        assertNull(registry.findTrainOfWagon(8001));
+        assertSame(trainWithoutWagons, registry.removeTrain(29123));
+        assertNull(registry.getTrain(29123));
+        assertNull(registry.findTrainOfWagon(8005));
+    }
+
+    @Test
+    public void T03_ShouldAggregateTheFleet() {
+        assertEquals(82, registry.getTotalNumberOfSeats());
+        assertEquals(90000, registry.getTotalMaxWeight());
+
+        List<FleetRegistry.RouteTotals> routes = registry.getTotalsPerRoute();
+        assertEquals(2, routes.size());
+        assertEquals("Berlin", routes.get(0).getDestination());
+        assertEquals(2, routes.get(0).getNumberOfWagons());
+        assertEquals(0.04, routes.get(0).getUtilisation(), 1e-9);
+        FleetRegistry.RouteTotals paris = routes.get(1);
+        assertEquals(2, paris.getNumberOfTrains());
+        assertEquals(14, paris.getCapacity());
+        assertEquals(82, paris.getTotalNumberOfSeats());
+        assertEquals(3.0 / 14, paris.getUtilisation(), 1e-9);
+    }
+
+    @Test
+    public void T04_ShouldAggregateALargeFleetInParallel() {
+        FleetRegistry fleet = new FleetRegistry();
+        for (int locNumber = 1; locNumber <= 1000; locNumber++) {
+            Train train = new Train(new Locomotive(locNumber, 20), "Amsterdam", locNumber % 2 == 0 ? "Paris" : "Berlin");
+            for (int i = 0; i < 10; i++) {
+                train.attachToRear(new PassengerWagon(locNumber * 100 + i, 10));
+            }
+            fleet.addTrain(train);
+        }
+        assertEquals(100000, fleet.getTotalNumberOfSeats());
+        for (FleetRegistry.RouteTotals route : fleet.getTotalsPerRoute()) {
+            assertEquals(500, route.getNumberOfTrains());
+            assertEquals(0.5, route.getUtilisation(), 1e-9);
+        }
+        assertEquals(537, fleet.findTrainOfWagon(53709).getEngine().getLocNumber());
+    }
+
+    @Test
+    public void T04_ShouldAggregateTrainsWithoutARoute() {
+        registry.addTrain(new Train(new Locomotive(1, 10), null, "Paris"));
+        registry.addTrain(new Train(new Locomotive(2, 10), "Amsterdam", null));
+        registry.addTrain(new Train(new Locomotive(3, 10), null, "Paris"));
+
+        List<FleetRegistry.RouteTotals> routes = registry.getTotalsPerRoute();
+        assertEquals(4, routes.size());
+        assertNull(routes.get(0).getOrigin());
+        assertEquals(2, routes.get(0).getNumberOfTrains());
+        assertNull(routes.get(1).getDestination());
+        assertEquals("Berlin", routes.get(2).getDestination());
+    }
+
+    @Test
+    public void T05_ShouldFollowTrainsReconfiguredInAYard() {
+        MarshallingYard yard = new MarshallingYard();
+        yard.addTrain(passengerTrain);
+        yard.addTrain(trainWithoutWagons);
+        FleetRegistry fleet = new FleetRegistry(yard);
+        assertTrue(fleet.addTrain(passengerTrain));
+        assertTrue(fleet.addTrain(trainWithoutWagons));
+        assertTrue(fleet.addTrain(freightTrain));
+        assertSame(passengerTrain, fleet.findTrainOfWagon(8003));
+        assertSame(freightTrain, fleet.findTrainOfWagon(9002));
+
+        assertTrue(yard.splitAtPosition(24531, 2, 29123));
+        assertSame(trainWithoutWagons, fleet.findTrainOfWagon(8003));
+        assertSame(trainWithoutWagons, fleet.removeTrain(29123));
+        assertNull(fleet.findTrainOfWagon(8002));
+        assertSame(passengerTrain, fleet.findTrainOfWagon(8001));
+    }
+
+    @Test
+    public void T06_ShouldFollowConcurrentMovesInAYard() throws Exception {
+        MarshallingYard yard = new MarshallingYard();
+        FleetRegistry fleet = new FleetRegistry(yard);
+        for (int locNumber = 1; locNumber <= 8; locNumber++) {
+            Train train = new Train(new Locomotive(locNumber, 400), "Amsterdam", "Berlin");
+            for (int i = 0; i < 50; i++) {
+                train.attachToRear(new FreightWagon(locNumber * 1000 + i, 1000));
+            }
+            yard.addTrain(train);
+            fleet.addTrain(train);
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<?>> workers = new ArrayList<>();
+        for (int worker = 0; worker < 4; worker++) {
+            workers.add(executor.submit(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < 2000; i++) {
+                    int wagonId = (1 + random.nextInt(8)) * 1000 + random.nextInt(50);
+                    Train train = fleet.findTrainOfWagon(wagonId);
+                    yard.moveOneWagon(train.getEngine().getLocNumber(), wagonId, 1 + random.nextInt(8));
+                }
+            }));
+        }
+        for (Future<?> worker : workers) {
+            worker.get();
+        }
+        executor.shutdown();
+
+        for (int locNumber = 1; locNumber <= 8; locNumber++) {
+            Train train = fleet.getTrain(locNumber);
+            for (Wagon wagon : train) {
+                assertSame(train, fleet.findTrainOfWagon(wagon.getId()));
+            }
+        }
+        assertEquals(400 * 1000, fleet.getTotalMaxWeight());
+    }
+}
@@ -0,0 +1,55 @@
+package models;
+
+import org.junit.jupiter.api.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@TestMethodOrder(MethodOrderer.MethodName.class)
+public class IntMapTest {
+
+    IntMap<String> map;
+
+    @BeforeEach
+    private void setup() {
+        map = new IntMap<>();
+    }
+
+    @Test
+    public void T01_AnEmptyMapHasNoKeys() {
+        assertEquals(0, map.size());
+        assertNull(map.get(8001));
+        assertNull(map.remove(8001));
+    }
+
+    @Test
+    public void T02_PutShouldReplaceTheFormerValue() {
+        assertNull(map.put(8001, "first"));
+        assertEquals("first", map.put(8001, "second"));
+        assertEquals("second", map.get(8001));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    public void T03_ManyKeysShouldSurviveGrowingAndRemoving() {
+        for (int key = -5000; key < 5000; key++) {
+            map.put(key, "v" + key);
+        }
+        assertEquals(10000, map.size());
+        for (int key = -5000; key < 5000; key += 2) {
+            assertEquals("v" + key, map.remove(key));
+        }
+        assertEquals(5000, map.size());
+        for (int key = -5000; key < 5000; key++) {
+            assertEquals(key % 2 == 0 ? null : "v" + key, map.get(key));
+        }
+    }
+
+    @Test
+    public void T04_ClearShouldRemoveAllKeys() {
+        map.put(1, "one");
+        map.put(2, "two");
+        map.clear();
+        assertEquals(0, map.size());
+        assertNull(map.get(1));
+    }
+}
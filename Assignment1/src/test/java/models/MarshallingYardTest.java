@@ -0,0 +1,85 @@
+package models;
+
+import org.junit.jupiter.api.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@TestMethodOrder(MethodOrderer.MethodName.class)
+public class MarshallingYardTest {
+    static final int NUMBER_OF_TRAINS = 8;
+    static final int WAGONS_PER_TRAIN = 50;
+
+    MarshallingYard yard;
+
+    @BeforeEach
+    private void setup() {
+        yard = new MarshallingYard();
+        for (int locNumber = 1; locNumber <= NUMBER_OF_TRAINS; locNumber++) {
+            Train train = new Train(new Locomotive(locNumber, NUMBER_OF_TRAINS * WAGONS_PER_TRAIN), "Here", "There");
+            for (int i = 0; i < WAGONS_PER_TRAIN; i++) {
+                train.attachToRear(new FreightWagon(locNumber * 1000 + i, 1000));
+            }
+            yard.addTrain(train);
+        }
+    }
+
+    @Test
+    public void T01_TrainsShouldBeIdentifiedByLocNumber() {
+        assertEquals(NUMBER_OF_TRAINS, yard.getNumberOfTrains());
+        assertFalse(yard.addTrain(new Train(new Locomotive(1, 1), "Here", "There")));
+        assertTrue(yard.moveOneWagon(1, 1000, 2));
+        assertEquals(WAGONS_PER_TRAIN + 1, (int) yard.withTrain(2, Train::getNumberOfWagons));
+        assertFalse(yard.moveOneWagon(1, 1000, 2));
+        assertFalse(yard.moveOneWagon(1, 1001, 99));
+
+        assertNotNull(yard.removeTrain(1));
+        assertFalse(yard.hasTrain(1));
+        assertNull(yard.withTrain(1, Train::getNumberOfWagons));
+    }
+
+    @Test
+    public void T02_ConcurrentMovesShouldPreserveAllWagons() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<?>> workers = new ArrayList<>();
+        for (int worker = 0; worker < 4; worker++) {
+            workers.add(executor.submit(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < 2000; i++) {
+                    int from = 1 + random.nextInt(NUMBER_OF_TRAINS);
+                    int to = 1 + random.nextInt(NUMBER_OF_TRAINS);
+                    if (random.nextInt(10) == 0) {
+                        yard.splitAtPosition(from, 1 + random.nextInt(WAGONS_PER_TRAIN), to);
+                    } else {
+                        int wagonId = (1 + random.nextInt(NUMBER_OF_TRAINS)) * 1000 + random.nextInt(WAGONS_PER_TRAIN);
+                        yard.moveOneWagon(from, wagonId, to);
+                    }
+                }
+            }));
+        }
+        for (Future<?> worker : workers) {
+            worker.get();
+        }
+        executor.shutdown();
+
+        int totalNumberOfWagons = 0;
+        for (int locNumber = 1; locNumber <= NUMBER_OF_TRAINS; locNumber++) {
+            Train train = yard.withTrain(locNumber, t -> t);
+            int counted = 0;
+            for (Wagon wagon = train.getFirstWagon(); wagon != null; wagon = wagon.getNextWagon()) {
+                assertSame(wagon, train.findWagonById(wagon.getId()));
+                counted++;
+            }
+            assertEquals(train.getNumberOfWagons(), counted);
+            assertEquals(1000 * counted, train.getTotalMaxWeight());
+            totalNumberOfWagons += counted;
+        }
+        assertEquals(NUMBER_OF_TRAINS * WAGONS_PER_TRAIN, totalNumberOfWagons);
+    }
+}
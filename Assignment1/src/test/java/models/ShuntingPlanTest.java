@@ -0,0 +1,145 @@
+package models;
+
+import org.junit.jupiter.api.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@TestMethodOrder(MethodOrderer.MethodName.class)
+public class ShuntingPlanTest {
+    Train passengerTrain, trainWithoutWagons, freightTrain;
+    ShuntingPlan plan;
+
+    @BeforeEach
+    private void setup() {
+        Locomotive rembrandt = new Locomotive(24531, 7);
+        passengerTrain = new Train(rembrandt, "Amsterdam", "Paris");
+        for (int id = 8001; id <= 8007; id++) {
+            passengerTrain.attachToRear(new PassengerWagon(id, 30));
+        }
+
+        Locomotive vanGogh = new Locomotive(29123, 4);
+        trainWithoutWagons = new Train(vanGogh, "Amsterdam", "London");
+
+        Locomotive clusius = new Locomotive(63427, 50);
+        freightTrain = new Train(clusius, "Amsterdam", "Berlin");
+        freightTrain.attachToRear(new FreightWagon(9001, 50000));
+        freightTrain.attachToRear(new FreightWagon(9002, 40000));
+
+        plan = new ShuntingPlan();
+    }
+
+    @Test
+    public void T01_AValidPlanShouldBeAppliedCompletely() {
+        plan.splitAtPosition(passengerTrain, 5, trainWithoutWagons);
+        plan.moveOneWagon(trainWithoutWagons, 8006, passengerTrain);
+        plan.reverse(trainWithoutWagons);
+        plan.insertAtFront(trainWithoutWagons, new PassengerWagon(8008, 30));
+        assertEquals(4, plan.getNumberOfSteps());
+
+        assertTrue(plan.isValid());
+        assertTrue(plan.apply());
+        assertEquals(5, passengerTrain.getNumberOfWagons());
+        assertEquals(8006, passengerTrain.getLastWagonAttached().getId());
+        assertEquals("[Loc-29123][Wagon-8008][Wagon-8007][Wagon-8005] with 3 wagons from Amsterdam to London",
+                trainWithoutWagons.toString());
+    }
+
+    @Test
+    public void T02_APlanExceedingProjectedCapacityShouldNotChangeAnyTrain() {
+        plan.splitAtPosition(passengerTrain, 5, trainWithoutWagons);
+        plan.attachToRear(trainWithoutWagons, new PassengerWagon(8008, 30));
+        plan.attachToRear(trainWithoutWagons, new PassengerWagon(8009, 30));
+
+        assertFalse(plan.isValid());
+        assertFalse(plan.apply());
+        assertEquals(7, passengerTrain.getNumberOfWagons());
+        assertFalse(trainWithoutWagons.hasWagons());
+    }
+
+    @Test
+    public void T03_APlanMixingWagonTypesShouldNotBeValid() {
+        plan.moveOneWagon(freightTrain, 9001, trainWithoutWagons);
+        plan.moveOneWagon(passengerTrain, 8001, trainWithoutWagons);
+        assertFalse(plan.isValid());
+    }
+
+    @Test
+    public void T04_AFailingStepShouldRollBackAllEarlierSteps() {
+        plan.moveOneWagon(passengerTrain, 8001, trainWithoutWagons);
+        plan.reverse(passengerTrain);
+        plan.moveOneWagon(freightTrain, 9002, freightTrain);
+        // wagon 8007 is on the passenger train, not on the freight train
+        plan.moveOneWagon(freightTrain, 8007, trainWithoutWagons);
+
+        assertTrue(plan.isValid());
+        assertFalse(plan.apply());
+        assertEquals("[Loc-24531][Wagon-8001][Wagon-8002][Wagon-8003][Wagon-8004][Wagon-8005][Wagon-8006][Wagon-8007]"
+                + " with 7 wagons from Amsterdam to Paris", passengerTrain.toString());
+        assertEquals(210, passengerTrain.getTotalNumberOfSeats());
+        assertEquals(9001, freightTrain.findWagonAtPosition(1).getId());
+        assertEquals(9002, freightTrain.getLastWagonAttached().getId());
+        assertFalse(trainWithoutWagons.hasWagons());
+        assertNull(trainWithoutWagons.findWagonById(8001));
+    }
+
+    @Test
+    public void T05_ARollBackShouldRestoreLooseSequencesAndPositions() {
+        Wagon looseWagon = new FreightWagon(9011, 60000);
+        looseWagon.attachTail(new FreightWagon(9012, 60000));
+        plan.insertAtPosition(freightTrain, 2, looseWagon);
+        plan.attachToRear(freightTrain, new FreightWagon(9003, 30000));
+        plan.moveOneWagon(freightTrain, 9002, trainWithoutWagons);
+        plan.reverse(freightTrain);
+        plan.splitAtPosition(freightTrain, 3, trainWithoutWagons);
+        // wagon 9001 has been split off to the other train by now
+        plan.moveOneWagon(freightTrain, 9001, freightTrain);
+
+        assertTrue(plan.isValid());
+        assertFalse(plan.apply());
+        assertEquals("[Loc-63427][Wagon-9001][Wagon-9002] with 2 wagons from Amsterdam to Berlin", freightTrain.toString());
+        assertEquals(90000, freightTrain.getTotalMaxWeight());
+        assertFalse(looseWagon.hasPreviousWagon());
+        assertEquals(9012, looseWagon.getNextWagon().getId());
+        assertFalse(looseWagon.getNextWagon().hasNextWagon());
+        assertFalse(trainWithoutWagons.hasWagons());
+        assertEquals(9002, freightTrain.findWagonAtPosition(2).getId());
+    }
+
+    @Test
+    public void T06_ARollBackShouldReturnMovedWagonsToTheirPositions() {
+        String original = passengerTrain.toString();
+        for (boolean positionalIndex : new boolean[]{false, true}) {
+            passengerTrain.setPositionalIndex(positionalIndex);
+            plan = new ShuntingPlan();
+            plan.reverse(passengerTrain);
+            plan.moveOneWagon(passengerTrain, 8003, trainWithoutWagons);
+            plan.moveOneWagon(passengerTrain, 8006, trainWithoutWagons);
+            plan.reverse(passengerTrain);
+            plan.moveOneWagon(passengerTrain, 8002, trainWithoutWagons);
+            plan.moveOneWagon(passengerTrain, 8007, passengerTrain);
+            // wagon 8001 is on the passenger train, not on the freight train
+            plan.moveOneWagon(freightTrain, 8001, trainWithoutWagons);
+
+            assertTrue(plan.isValid());
+            assertFalse(plan.apply());
+            assertEquals(original, passengerTrain.toString());
+            assertEquals(8003, passengerTrain.findWagonAtPosition(3).getId());
+            assertFalse(trainWithoutWagons.hasWagons());
+        }
+    }
+
+    @Test
+    public void T07_ValidationShouldNotChangeAnyTrain() {
+        Wagon firstWagon = passengerTrain.findWagonAtPosition(1);
+        passengerTrain.reverse();
+        plan.moveOneWagon(passengerTrain, 8003, trainWithoutWagons);
+        plan.moveOneWagon(trainWithoutWagons, 8003, passengerTrain);
+
+        assertTrue(plan.isValid());
+        // the reversed train has not been relinked by the validation
+        assertEquals(8002, firstWagon.getNextWagon().getId());
+        assertEquals(8001, passengerTrain.findWagonById(8001).getId());
+        assertEquals(8002, firstWagon.getNextWagon().getId());
+        assertEquals(8007, passengerTrain.findWagonAtPosition(1).getId());
+    }
+}
@@ -0,0 +1,164 @@
+package models;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@TestMethodOrder(MethodOrderer.MethodName.class)
+public class TrainJournalTest {
+    @TempDir
+    Path directory;
+
+    Train passengerTrain, trainWithoutWagons;
+
+    @BeforeEach
+    private void setup() {
+        Locomotive rembrandt = new Locomotive(24531, 7);
+        passengerTrain = new Train(rembrandt, "Amsterdam", "Paris");
+        passengerTrain.attachToRear(new PassengerWagon(8001, 32));
+        passengerTrain.attachToRear(new PassengerWagon(8002, 32));
+        passengerTrain.attachToRear(new PassengerWagon(8003, 18));
+
+        Locomotive vanGogh = new Locomotive(29123, 7);
+        trainWithoutWagons = new Train(vanGogh, "Amsterdam", "London");
+    }
+
+    private void reconfigure() {
+        Wagon sequence = new PassengerWagon(8004, 44);
+        sequence.attachTail(new PassengerWagon(8005, 44));
+        passengerTrain.attachToRear(sequence);
+        passengerTrain.insertAtFront(new PassengerWagon(8000, 20));
+        passengerTrain.insertAtPosition(3, new PassengerWagon(8010, 50));
+        passengerTrain.reverse();
+        passengerTrain.moveOneWagon(8002, trainWithoutWagons);
+        passengerTrain.splitAtPosition(5, trainWithoutWagons);
+        // reconfigurations that cannot be made are not journaled
+        assertFalse(passengerTrain.attachToRear(new FreightWagon(9001, 1000)));
+        passengerTrain.insertAtPosition(2, new PassengerWagon(8020, 10));
+    }
+
+    @Test
+    public void T01_ShouldRestoreAllTrainsFromTheLog() {
+        try (TrainJournal journal = new TrainJournal(directory.toString(), 1000)) {
+            assertTrue(journal.addTrain(passengerTrain));
+            assertTrue(journal.addTrain(trainWithoutWagons));
+            assertFalse(journal.addTrain(passengerTrain));
+            reconfigure();
+            assertEquals(9, journal.getNumberOfRecords());
+        }
+
+        try (TrainJournal restored = new TrainJournal(directory.toString(), 1000)) {
+            assertEquals(2, restored.getTrains().size());
+            assertEquals(passengerTrain.toString(), restored.getTrain(24531).toString());
+            assertEquals(trainWithoutWagons.toString(), restored.getTrain(29123).toString());
+            assertEquals(passengerTrain.getTotalNumberOfSeats(), restored.getTrain(24531).getTotalNumberOfSeats());
+            assertEquals(0, restored.getEpoch());
+        }
+    }
+
+    @Test
+    public void T02_ShouldReplayOnlyTheRecordsSinceTheLastSnapshot() {
+        try (TrainJournal journal = new TrainJournal(directory.toString(), 4)) {
+            journal.addTrain(passengerTrain);
+            journal.addTrain(trainWithoutWagons);
+            reconfigure();
+            assertEquals(2, journal.getEpoch());
+            assertEquals(1, journal.getNumberOfRecords());
+        }
+
+        try (TrainJournal restored = new TrainJournal(directory.toString(), 4)) {
+            assertEquals(2, restored.getEpoch());
+            assertEquals(1, restored.getNumberOfRecords());
+            assertEquals(passengerTrain.toString(), restored.getTrain(24531).toString());
+            assertEquals(trainWithoutWagons.toString(), restored.getTrain(29123).toString());
+
+            // the restored trains are journaled as well
+            restored.getTrain(29123).splitAtPosition(2, restored.getTrain(24531));
+            assertNull(restored.removeTrain(12345));
+            assertNotNull(restored.removeTrain(29123));
+        }
+
+        try (TrainJournal restored = new TrainJournal(directory.toString(), 4)) {
+            assertEquals(1, restored.getTrains().size());
+            assertEquals(passengerTrain.getNumberOfWagons() + trainWithoutWagons.getNumberOfWagons() - 1,
+                    restored.getTrain(24531).getNumberOfWagons());
+        }
+    }
+
+    @Test
+    public void T03_ShouldGrowTheLogForManyRecords() {
+        Train longTrain = new Train(new Locomotive(1, 100000), "Amsterdam", "Paris");
+        try (TrainJournal journal = new TrainJournal(directory.toString(), 100000)) {
+            journal.addTrain(longTrain);
+            for (int id = 1; id <= 20000; id++) {
+                longTrain.attachToRear(new FreightWagon(id, id));
+            }
+        }
+        try (TrainJournal restored = new TrainJournal(directory.toString(), 100000)) {
+            assertEquals(20000, restored.getTrain(1).getNumberOfWagons());
+            assertEquals(longTrain.getTotalMaxWeight(), restored.getTrain(1).getTotalMaxWeight());
+        }
+    }
+
+    @Test
+    public void T04_ShouldNotJournalOrRegisterAFailedAttachment() {
+        FleetRegistry registry = new FleetRegistry();
+        registry.addTrain(passengerTrain);
+        registry.addTrain(trainWithoutWagons);
+        Wagon linkedWagon = passengerTrain.findWagonAtPosition(2);
+        try (TrainJournal journal = new TrainJournal(directory.toString(), 1000)) {
+            journal.addTrain(passengerTrain);
+            journal.addTrain(trainWithoutWagons);
+            int numberOfRecords = journal.getNumberOfRecords();
+
+            // the wagon is still attached behind another wagon of passengerTrain
+            assertThrows(IllegalStateException.class, () -> trainWithoutWagons.attachToRear(linkedWagon));
+            Wagon sequence = new PassengerWagon(8004, 44);
+            sequence.attachTail(new PassengerWagon(8005, 44));
+            assertThrows(IllegalStateException.class, () -> passengerTrain.insertAtPosition(2, sequence.getNextWagon()));
+            // the wagons are already part of passengerTrain
+            assertFalse(passengerTrain.attachToRear(passengerTrain.getFirstWagon()));
+            assertFalse(passengerTrain.insertAtPosition(2, linkedWagon));
+
+            assertEquals(numberOfRecords, journal.getNumberOfRecords());
+            assertSame(passengerTrain, registry.findTrainOfWagon(8002));
+            assertSame(passengerTrain, registry.findTrainOfWagon(8003));
+            assertFalse(trainWithoutWagons.hasWagons());
+        }
+
+        try (TrainJournal restored = new TrainJournal(directory.toString(), 1000)) {
+            assertEquals(passengerTrain.toString(), restored.getTrain(24531).toString());
+            assertEquals(trainWithoutWagons.toString(), restored.getTrain(29123).toString());
+        }
+    }
+
+    @Test
+    public void T05_ShouldRestoreTrainsWithoutARouteAndRejectDuplicateWagons() {
+        Train withoutRoute = new Train(new Locomotive(1, 5), null, null);
+        withoutRoute.attachToRear(new PassengerWagon(8101, 20));
+        try (TrainJournal journal = new TrainJournal(directory.toString(), 1000)) {
+            assertTrue(journal.addTrain(withoutRoute));
+            assertTrue(journal.addTrain(passengerTrain));
+        }
+        try (TrainJournal restored = new TrainJournal(directory.toString(), 1000)) {
+            assertNull(restored.getTrain(1).getOrigin());
+            assertNull(restored.getTrain(1).getDestination());
+            restored.snapshot();
+        }
+        try (TrainJournal restored = new TrainJournal(directory.toString(), 1000)) {
+            assertEquals(withoutRoute.toString(), restored.getTrain(1).toString());
+            assertEquals(1, restored.getEpoch());
+
+            // a wagon id that is already in the journal would make the snapshot unrecoverable
+            restored.getTrain(1).attachToRear(new PassengerWagon(8001, 20));
+            assertThrows(IllegalArgumentException.class, restored::snapshot);
+        }
+        try (TrainJournal restored = new TrainJournal(directory.toString(), 1000)) {
+            assertEquals(1, restored.getEpoch());
+            assertEquals(2, restored.getTrain(1).getNumberOfWagons());
+        }
+    }
+}
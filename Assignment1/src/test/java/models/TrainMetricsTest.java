@@ -0,0 +1,99 @@
+package models;
+
+import org.junit.jupiter.api.*;
+
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@TestMethodOrder(MethodOrderer.MethodName.class)
+public class TrainMetricsTest {
+    TrainMetrics metrics = TrainMetrics.getInstance();
+    Train passengerTrain;
+    PassengerWagon wagon1, wagon2, wagon3;
+
+    @BeforeEach
+    private void setup() {
+        passengerTrain = new Train(new Locomotive(24531, 7), "Amsterdam", "Paris");
+        for (int id = 8001; id <= 8006; id++) {
+            passengerTrain.attachToRear(new PassengerWagon(id, 32));
+        }
+        wagon1 = new PassengerWagon(9001, 20);
+        wagon2 = new PassengerWagon(9002, 20);
+        wagon3 = new PassengerWagon(9003, 20);
+        wagon1.attachTail(wagon2);
+        wagon2.attachTail(wagon3);
+        metrics.setEnabled(true);
+        metrics.reset();
+    }
+
+    @AfterEach
+    private void teardown() {
+        metrics.setEnabled(false);
+        metrics.reset();
+    }
+
+    @Test
+    public void T01_ShouldCountCallsAndHopsOfWagonWalks() {
+        assertEquals(2, wagon1.getTailLength());
+        assertEquals(0, wagon3.getTailLength());
+        assertSame(wagon3, wagon2.getLastWagonAttached());
+
+        TrainMetrics.OperationStatistics tailLength = metrics.snapshot(TrainMetrics.Operation.WAGON_GET_TAIL_LENGTH);
+        assertEquals(2, tailLength.getCount());
+        assertEquals(2, tailLength.getTotalHops());
+        assertEquals(2, tailLength.getMaxHops());
+        assertEquals(1.0, tailLength.getAverageHops());
+        assertEquals(2, Arrays.stream(tailLength.getLatencyHistogram()).sum());
+
+        TrainMetrics.OperationStatistics lastWagon =
+                metrics.snapshot(TrainMetrics.Operation.WAGON_GET_LAST_WAGON_ATTACHED);
+        assertEquals(1, lastWagon.getCount());
+        assertEquals(1, lastWagon.getTotalHops());
+    }
+
+    @Test
+    public void T02_ShouldCountHopsOfTrainLookups() {
+        assertEquals(8002, passengerTrain.findWagonAtPosition(2).getId());
+        assertEquals(8005, passengerTrain.findWagonAtPosition(5).getId());
+        assertEquals(8004, passengerTrain.findWagonById(8004).getId());
+
+        TrainMetrics.OperationStatistics atPosition =
+                metrics.snapshot(TrainMetrics.Operation.TRAIN_FIND_WAGON_AT_POSITION);
+        assertEquals(2, atPosition.getCount());
+        // one hop from the front to position 2, one hop from the rear to position 5
+        assertEquals(2, atPosition.getTotalHops());
+        assertEquals(1, metrics.snapshot(TrainMetrics.Operation.TRAIN_FIND_WAGON_BY_ID).getCount());
+        assertEquals(0, metrics.snapshot(TrainMetrics.Operation.TRAIN_FIND_WAGON_BY_ID).getTotalHops());
+    }
+
+    @Test
+    public void T03_ShouldNotCountWhileDisabled() {
+        metrics.setEnabled(false);
+        wagon1.getTailLength();
+        passengerTrain.findWagonAtPosition(3);
+        for (TrainMetrics.OperationStatistics statistics : metrics.getStatistics()) {
+            assertEquals(0, statistics.getCount(), statistics.getOperation());
+        }
+    }
+
+    @Test
+    public void T04_ShouldResetTheStatistics() {
+        wagon1.getTailLength();
+        metrics.reset();
+        assertEquals(0, metrics.snapshot(TrainMetrics.Operation.WAGON_GET_TAIL_LENGTH).getCount());
+        assertEquals(TrainMetrics.Operation.values().length, metrics.getStatistics().size());
+    }
+
+    @Test
+    public void T05_ShouldBeManageableThroughJmx() throws Exception {
+        TrainMetrics.register();
+        TrainMetrics.register();
+        ObjectName name = new ObjectName(TrainMetrics.OBJECT_NAME);
+        assertEquals(true, ManagementFactory.getPlatformMBeanServer().getAttribute(name, "Enabled"));
+        metrics.setEnabled(false);
+        assertEquals(false, ManagementFactory.getPlatformMBeanServer().getAttribute(name, "Enabled"));
+    }
+}
@@ -2,6 +2,10 @@ package models;
 
 import org.junit.jupiter.api.*;
 
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Spliterator;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 @TestMethodOrder(MethodOrderer.MethodName.class)
@@ -306,4 +310,254 @@ public class TrainTest {
         trainWithoutWagons.reverse();
         assertEquals(0, trainWithoutWagons.getNumberOfWagons());
     }
+
+    @Test
+    public void T19_cumulativePropertiesShouldFollowReconfigurations() {
+        assertTrue(passengerTrain.splitAtPosition(5, trainWithoutWagons));
+        assertEquals(126, passengerTrain.getTotalNumberOfSeats());
+        assertEquals(128, trainWithoutWagons.getTotalNumberOfSeats());
+        assertEquals(8004, passengerTrain.getLastWagonAttached().getId());
+
+        assertTrue(trainWithoutWagons.moveOneWagon(8007, passengerTrain));
+        assertEquals(5, passengerTrain.getNumberOfWagons());
+        assertEquals(166, passengerTrain.getTotalNumberOfSeats());
+        assertEquals(8007, passengerTrain.getLastWagonAttached().getId());
+        assertEquals(8006, trainWithoutWagons.getLastWagonAttached().getId());
+
+        passengerTrain.reverse();
+        assertEquals(8001, passengerTrain.getLastWagonAttached().getId());
+        assertEquals(166, passengerTrain.getTotalNumberOfSeats());
+
+        assertTrue(freightTrain.insertAtFront(freightWagon1));
+        assertEquals(240000, freightTrain.getTotalMaxWeight());
+        assertEquals(9003, freightTrain.getLastWagonAttached().getId());
+    }
+
+    @Test
+    public void T28_insertAtPositionShouldInsertBeforeTheGivenWagon() {
+        assertTrue(freightTrain.insertAtPosition(2, freightWagon1));
+        assertEquals(5, freightTrain.getNumberOfWagons());
+        assertEquals(9001, freightTrain.findWagonAtPosition(1).getId());
+        assertEquals(9011, freightTrain.findWagonAtPosition(2).getId());
+        assertEquals(9012, freightTrain.findWagonAtPosition(3).getId());
+        assertEquals(9002, freightTrain.findWagonAtPosition(4).getId());
+        assertEquals(9003, freightTrain.getLastWagonAttached().getId());
+        assertEquals(240000, freightTrain.getTotalMaxWeight());
+    }
+
+    @Test
+    public void T20_findWagonByIdShouldFollowReconfigurations() {
+        assertTrue(passengerTrain.splitAtPosition(5, trainWithoutWagons));
+        assertNull(passengerTrain.findWagonById(8005));
+        assertEquals(8005, trainWithoutWagons.findWagonById(8005).getId());
+
+        assertTrue(trainWithoutWagons.moveOneWagon(8006, passengerTrain));
+        assertNull(trainWithoutWagons.findWagonById(8006));
+        assertEquals(8006, passengerTrain.findWagonById(8006).getId());
+
+        passengerWagon3.detachFront();
+        assertTrue(passengerTrain.attachToRear(passengerWagon1));
+        assertEquals(8011, passengerTrain.findWagonById(8011).getId());
+        assertEquals(8012, passengerTrain.findWagonById(8012).getId());
+    }
+
+    @Test
+    public void T21_positionalIndexShouldFollowReconfigurations() {
+        passengerTrain.setPositionalIndex(true);
+        trainWithoutWagons.setPositionalIndex(true);
+        assertTrue(passengerTrain.hasPositionalIndex());
+        assertEquals(8001, passengerTrain.findWagonAtPosition(1).getId());
+        assertEquals(8007, passengerTrain.findWagonAtPosition(7).getId());
+        assertNull(passengerTrain.findWagonAtPosition(8));
+        assertNull(passengerTrain.findWagonAtPosition(0));
+
+        assertTrue(passengerTrain.splitAtPosition(5, trainWithoutWagons));
+        assertNull(passengerTrain.findWagonAtPosition(5));
+        assertEquals(8005, trainWithoutWagons.findWagonAtPosition(1).getId());
+
+        assertTrue(trainWithoutWagons.moveOneWagon(8006, passengerTrain));
+        assertEquals(8007, trainWithoutWagons.findWagonAtPosition(2).getId());
+        assertEquals(8006, passengerTrain.findWagonAtPosition(5).getId());
+
+        passengerWagon3.detachFront();
+        assertTrue(trainWithoutWagons.insertAtPosition(2, passengerWagon1));
+        assertEquals(8005, trainWithoutWagons.findWagonAtPosition(1).getId());
+        assertEquals(8011, trainWithoutWagons.findWagonAtPosition(2).getId());
+        assertEquals(8012, trainWithoutWagons.findWagonAtPosition(3).getId());
+        assertEquals(8007, trainWithoutWagons.findWagonAtPosition(4).getId());
+
+        trainWithoutWagons.reverse();
+        assertEquals(8007, trainWithoutWagons.findWagonAtPosition(1).getId());
+        assertEquals(8005, trainWithoutWagons.findWagonAtPosition(4).getId());
+    }
+
+    @Test
+    public void T22_aReversedTrainShouldAttachInTheReversedOrder() {
+        freightTrain.reverse();
+        assertEquals(9001, freightTrain.getLastWagonAttached().getId());
+        assertEquals(9003, freightTrain.findWagonAtPosition(1).getId());
+        assertTrue(freightTrain.toString().startsWith("[Loc-63427][Wagon-9003][Wagon-9002][Wagon-9001]"));
+
+        assertTrue(freightTrain.attachToRear(freightWagon1));
+        assertEquals(9012, freightTrain.getLastWagonAttached().getId());
+        assertEquals(9011, freightTrain.findWagonAtPosition(4).getId());
+
+        assertTrue(freightTrain.insertAtFront(new FreightWagon(9004, 10000)));
+        assertEquals(9004, freightTrain.findWagonAtPosition(1).getId());
+        assertEquals(250000, freightTrain.getTotalMaxWeight());
+
+        // walking the sequence from the first wagon shows the reversed order
+        int[] expectedIds = {9004, 9003, 9002, 9001, 9011, 9012};
+        Wagon wagon = freightTrain.getFirstWagon();
+        for (int expectedId : expectedIds) {
+            assertEquals(expectedId, wagon.getId());
+            wagon = wagon.getNextWagon();
+        }
+        assertNull(wagon);
+    }
+
+    @Test
+    public void T29_wagonsOfAReversedTrainShouldNotBeAttachedElsewhere() {
+        freightTrain.reverse();
+        Wagon lastWagon = freightTrain.getLastWagonAttached();
+        assertEquals(9001, lastWagon.getId());
+        assertFalse(lastWagon.hasNextWagon());
+        assertEquals(9002, lastWagon.getPreviousWagon().getId());
+        assertSame(lastWagon, freightTrain.findWagonAtPosition(3));
+
+        Train otherTrain = new Train(new Locomotive(24531, 7), "Amsterdam", "Rotterdam");
+        otherTrain.attachToRear(new FreightWagon(9021, 10000));
+        assertThrows(IllegalStateException.class, () -> otherTrain.attachToRear(lastWagon));
+
+        assertEquals(1, otherTrain.getNumberOfWagons());
+        assertEquals(3, freightTrain.getNumberOfWagons());
+        assertTrue(freightTrain.toString().startsWith("[Loc-63427][Wagon-9003][Wagon-9002][Wagon-9001]"));
+    }
+
+    @Test
+    public void T23_iterationShouldFollowTheOrderOfTheTrain() {
+        int[] expectedIds = {9003, 9002, 9001};
+        freightTrain.reverse();
+        int index = 0;
+        for (Wagon wagon : freightTrain) {
+            assertEquals(expectedIds[index++], wagon.getId());
+        }
+        assertEquals(3, index);
+        assertEquals(3, freightTrain.stream().count());
+        assertFalse(trainWithoutWagons.iterator().hasNext());
+        assertEquals(passengerTrain.getTotalNumberOfSeats(), passengerTrain.stream()
+                .mapToInt(wagon -> ((PassengerWagon) wagon).getNumberOfSeats()).sum());
+    }
+
+    @Test
+    public void T23_parallelStreamsShouldSplitLongTrains() {
+        for (boolean positionalIndex : new boolean[]{false, true}) {
+            Train longTrain = new Train(new Locomotive(1, 100000), "Amsterdam", "Paris");
+            longTrain.setPositionalIndex(positionalIndex);
+            for (int id = 1; id <= 10000; id++) {
+                longTrain.attachToRear(new FreightWagon(id, id));
+            }
+            longTrain.reverse();
+
+            Spliterator<Wagon> rear = longTrain.spliterator();
+            Spliterator<Wagon> front = rear.trySplit();
+            assertEquals(5000, front.estimateSize());
+            assertEquals(5000, rear.estimateSize());
+            assertTrue(rear.tryAdvance(wagon -> assertEquals(5000, wagon.getId())));
+            assertTrue(front.tryAdvance(wagon -> assertEquals(10000, wagon.getId())));
+
+            assertEquals(longTrain.getTotalMaxWeight(), longTrain.stream().parallel()
+                    .mapToInt(wagon -> ((FreightWagon) wagon).getMaxWeight()).sum());
+            int[] ids = longTrain.stream().parallel().mapToInt(Wagon::getId).toArray();
+            for (int i = 0; i < ids.length; i++) {
+                assertEquals(10000 - i, ids[i]);
+            }
+        }
+    }
+
+    @Test
+    public void T24_renderShouldStreamTheDescription() throws IOException {
+        StringWriter out = new StringWriter();
+        assertSame(out, passengerTrain.render(out));
+        assertEquals(passengerTrain.toString(), out.toString());
+        assertEquals("[Loc-29123] with 0 wagons from Amsterdam to London", trainWithoutWagons.toString());
+    }
+
+    @Test
+    public void T24_renderPageShouldRenderOnlyThePage() throws IOException {
+        assertEquals("[Loc-24531][Wagon-8003][Wagon-8004][Wagon-8005] with wagons 3 to 5 of 7 from Amsterdam to Paris",
+                passengerTrain.renderPage(new StringBuilder(), 3, 5).toString());
+        passengerTrain.reverse();
+        assertEquals("[Loc-24531][Wagon-8002][Wagon-8001] with wagons 6 to 7 of 7 from Amsterdam to Paris",
+                passengerTrain.renderPage(new StringBuilder(), 6, 10).toString());
+        assertEquals("[Loc-24531] with wagons 8 to 7 of 7 from Amsterdam to Paris",
+                passengerTrain.renderPage(new StringBuilder(), 8, 20).toString());
+        assertThrows(IllegalArgumentException.class, () -> passengerTrain.renderPage(new StringBuilder(), 0, 3));
+        assertThrows(IllegalArgumentException.class, () -> passengerTrain.renderPage(new StringBuilder(), 4, 2));
+    }
+
+    @Test
+    public void T25_aFailedAttachmentShouldLeaveThePositionalIndexIntact() {
+        freightTrain.setPositionalIndex(true);
+        Wagon wagon2 = freightTrain.findWagonById(9002);
+        assertFalse(freightTrain.attachToRear(wagon2));
+        assertThrows(IllegalStateException.class, () -> freightTrain.attachToRear(freightWagon2));
+        assertTrue(freightTrain.moveOneWagon(9002, trainWithoutWagons));
+        assertTrue(freightTrain.toString().startsWith("[Loc-63427][Wagon-9001][Wagon-9003] "));
+        assertEquals(9003, freightTrain.findWagonAtPosition(2).getId());
+        assertNull(freightTrain.findWagonAtPosition(3));
+
+        // sequences linked at either end of the reversed linked sequence are indexed in the order of the train
+        freightTrain.reverse();
+        assertTrue(freightTrain.attachToRear(freightWagon1));
+        assertTrue(freightTrain.insertAtFront(new FreightWagon(9004, 10000)));
+        int[] expectedIds = {9004, 9003, 9001, 9011, 9012};
+        for (int position = 1; position <= expectedIds.length; position++) {
+            assertEquals(expectedIds[position - 1], freightTrain.findWagonAtPosition(position).getId());
+        }
+        assertEquals(5, freightTrain.getNumberOfWagons());
+        assertEquals(210000, freightTrain.getTotalMaxWeight());
+    }
+
+    @Test
+    public void T26_insertAtPositionOneShouldInsertAtTheFront() {
+        assertTrue(freightTrain.insertAtPosition(1, freightWagon1));
+        assertEquals(5, freightTrain.getNumberOfWagons());
+        assertEquals(9011, freightTrain.findWagonAtPosition(1).getId());
+        assertEquals(9012, freightTrain.findWagonAtPosition(2).getId());
+        assertEquals(9001, freightTrain.findWagonAtPosition(3).getId());
+        assertEquals(9003, freightTrain.getLastWagonAttached().getId());
+        assertEquals(240000, freightTrain.getTotalMaxWeight());
+    }
+
+    @Test
+    public void T26_insertAtPositionShouldCheckTypeAndCapacity() {
+        assertFalse(freightTrain.insertAtPosition(1, passengerWagon1));
+        assertFalse(freightTrain.insertAtPosition(2, passengerWagon1));
+        assertFalse(passengerTrain.insertAtPosition(1, new PassengerWagon(8008, 40)));
+        assertFalse(passengerTrain.insertAtPosition(4, new PassengerWagon(8008, 40)));
+        assertEquals(3, freightTrain.getNumberOfWagons());
+        assertEquals(7, passengerTrain.getNumberOfWagons());
+        assertEquals(8001, passengerTrain.findWagonAtPosition(1).getId());
+    }
+
+    @Test
+    public void T27_onlyOperationsThatHandOutWagonsShouldRelinkAReversedTrain() {
+        Wagon wagon8001 = passengerTrain.findWagonById(8001);
+        passengerTrain.reverse();
+        passengerTrain.reverse();
+        passengerTrain.reverse();
+        assertTrue(passengerTrain.moveOneWagon(8004, trainWithoutWagons));
+        assertTrue(passengerTrain.moveOneWagon(8005, trainWithoutWagons));
+        assertTrue(passengerTrain.attachToRear(new PassengerWagon(8008, 20)));
+        assertTrue(passengerTrain.insertAtFront(new PassengerWagon(8009, 20)));
+        assertEquals(206, passengerTrain.getTotalNumberOfSeats());
+        // the linked sequence still runs in its former order
+        assertEquals(8002, wagon8001.getNextWagon().getId());
+
+        assertEquals(8009, passengerTrain.findWagonAtPosition(1).getId());
+        assertEquals(8008, wagon8001.getNextWagon().getId());
+        assertNull(wagon8001.getNextWagon().getNextWagon());
+        assertEquals(8008, passengerTrain.getLastWagonAttached().getId());
+    }
 }
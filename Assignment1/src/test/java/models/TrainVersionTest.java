@@ -0,0 +1,159 @@
+package models;
+
+import org.junit.jupiter.api.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@TestMethodOrder(MethodOrderer.MethodName.class)
+public class TrainVersionTest {
+    Train passengerTrain, trainWithoutWagons, freightTrain;
+
+    @BeforeEach
+    private void setup() {
+        Locomotive rembrandt = new Locomotive(24531, 7);
+        passengerTrain = new Train(rembrandt, "Amsterdam", "Paris");
+        passengerTrain.attachToRear(new PassengerWagon(8001, 32));
+        passengerTrain.attachToRear(new PassengerWagon(8002, 32));
+        passengerTrain.attachToRear(new PassengerWagon(8003, 18));
+        passengerTrain.attachToRear(new PassengerWagon(8004, 44));
+        passengerTrain.attachToRear(new PassengerWagon(8005, 44));
+
+        Locomotive vanGogh = new Locomotive(29123, 7);
+        trainWithoutWagons = new Train(vanGogh, "Amsterdam", "London");
+
+        Locomotive clusius = new Locomotive(63427, 50);
+        freightTrain = new Train(clusius, "Amsterdam", "Berlin");
+        freightTrain.attachToRear(new FreightWagon(9001, 50000));
+        freightTrain.attachToRear(new FreightWagon(9002, 40000));
+    }
+
+    @Test
+    public void T01_snapshotShouldMatchTheTrain() {
+        TrainVersion version = passengerTrain.snapshot();
+        assertEquals(passengerTrain.toString(), version.toString());
+        assertEquals(5, version.getNumberOfWagons());
+        assertEquals(170, version.getTotalNumberOfSeats());
+        assertEquals(0, version.getTotalMaxWeight());
+        assertTrue(version.isPassengerTrain());
+        assertEquals(90000, freightTrain.snapshot().getTotalMaxWeight());
+        assertFalse(trainWithoutWagons.snapshot().hasWagons());
+        assertEquals(8003, version.findWagonAtPosition(3).getId());
+        assertEquals(4, version.findPosition(8004));
+        assertNull(version.findWagonById(9001));
+    }
+
+    @Test
+    public void T02_snapshotShouldBeReusedUntilTheTrainChanges() {
+        TrainVersion version = passengerTrain.snapshot();
+        assertSame(version, passengerTrain.snapshot());
+        passengerTrain.reverse();
+        TrainVersion reversed = passengerTrain.snapshot();
+        assertNotSame(version, reversed);
+        assertEquals(8005, reversed.findWagonAtPosition(1).getId());
+        passengerTrain.moveOneWagon(8003, trainWithoutWagons);
+        assertEquals(4, passengerTrain.snapshot().getNumberOfWagons());
+        assertEquals(5, reversed.getNumberOfWagons());
+    }
+
+    @Test
+    public void T03_reconfigurationsShouldLeaveTheOriginalUnchanged() {
+        TrainVersion version = passengerTrain.snapshot();
+        String original = version.toString();
+
+        TrainVersion inserted = version.insertAtPosition(3, new PassengerWagon(8011, 50));
+        assertEquals(6, inserted.getNumberOfWagons());
+        assertEquals(8011, inserted.findWagonAtPosition(3).getId());
+        assertEquals(220, inserted.getTotalNumberOfSeats());
+
+        TrainVersion.Transfer split = version.splitAtPosition(4, trainWithoutWagons.snapshot());
+        assertEquals(3, split.getFromTrain().getNumberOfWagons());
+        assertEquals(2, split.getToTrain().getNumberOfWagons());
+        assertEquals(8004, split.getToTrain().findWagonAtPosition(1).getId());
+
+        TrainVersion.Transfer move = version.moveOneWagon(8002, split.getToTrain());
+        assertEquals(4, move.getFromTrain().getNumberOfWagons());
+        assertEquals(8002, move.getToTrain().getLastWagonAttached().getId());
+        assertEquals(3, move.getToTrain().getNumberOfWagons());
+
+        assertEquals(original, version.toString());
+        assertEquals(original, passengerTrain.toString());
+        assertEquals(2, split.getToTrain().getNumberOfWagons());
+    }
+
+    @Test
+    public void T04_reconfigurationsShouldRespectCompatibilityAndCapacity() {
+        TrainVersion version = passengerTrain.snapshot();
+        assertNull(version.attachToRear(new FreightWagon(9011, 1000)));
+        assertNull(version.insertAtPosition(7, new PassengerWagon(8011, 50)));
+        assertNull(version.moveOneWagon(8001, freightTrain.snapshot()));
+        assertNull(version.moveOneWagon(8099, trainWithoutWagons.snapshot()));
+        assertNull(version.splitAtPosition(0, trainWithoutWagons.snapshot()));
+        Wagon sequence = new PassengerWagon(8011, 50);
+        sequence.attachTail(new PassengerWagon(8012, 50));
+        sequence.getNextWagon().attachTail(new PassengerWagon(8013, 50));
+        assertNull(version.insertAtFront(sequence));
+        assertEquals(7, version.insertAtFront(sequence.getNextWagon()).getNumberOfWagons());
+    }
+
+    @Test
+    public void T05_reversedVersionsShouldReconfigureInTheReversedOrder() {
+        TrainVersion reversed = passengerTrain.snapshot().reverse();
+        assertEquals(8005, reversed.findWagonAtPosition(1).getId());
+        TrainVersion inserted = reversed.insertAtPosition(2, new PassengerWagon(8011, 50));
+        passengerTrain.reverse();
+        passengerTrain.insertAtPosition(2, new PassengerWagon(8011, 50));
+        assertEquals(passengerTrain.toString(), inserted.toString());
+        assertEquals(passengerTrain.toString(), inserted.toTrain().toString());
+        assertEquals(passengerTrain.snapshot().reverse().toString(), inserted.reverse().toString());
+    }
+
+    @Test
+    public void T06_longConsistsShouldMatchAMutableTrain() {
+        Train train = new Train(new Locomotive(1, 100000), "Amsterdam", "Paris");
+        for (int id = 1; id <= 2000; id++) {
+            train.attachToRear(new PassengerWagon(id, id % 50));
+        }
+        TrainVersion version = train.snapshot();
+        Train other = new Train(new Locomotive(2, 100000), "Amsterdam", "London");
+        TrainVersion otherVersion = other.snapshot();
+        for (int i = 1; i <= 200; i++) {
+            int position = (i * 37) % train.getNumberOfWagons() + 1;
+            if (i % 3 == 0) {
+                train.reverse();
+                version = version.reverse();
+            } else if (i % 3 == 1) {
+                int wagonId = train.findWagonAtPosition(position).getId();
+                train.moveOneWagon(wagonId, other);
+                TrainVersion.Transfer move = version.moveOneWagon(wagonId, otherVersion);
+                version = move.getFromTrain();
+                otherVersion = move.getToTrain();
+            } else {
+                train.insertAtPosition(position, new PassengerWagon(10000 + i, i));
+                version = version.insertAtPosition(position, new PassengerWagon(10000 + i, i));
+            }
+        }
+        assertEquals(train.toString(), version.toString());
+        assertEquals(train.getTotalNumberOfSeats(), version.getTotalNumberOfSeats());
+        assertEquals(other.toString(), otherVersion.toString());
+    }
+
+    @Test
+    public void T07_findPositionShouldSearchAllSubtrees() {
+        Train train = new Train(new Locomotive(1, 1000), "Amsterdam", "Paris");
+        for (int i = 0; i < 500; i++) {
+            // ids that are scattered over the train
+            train.attachToRear(new FreightWagon((i * 7919) % 5000 + 1, 1000));
+        }
+        TrainVersion version = train.snapshot().reverse().insertAtPosition(100, new FreightWagon(9999, 1000));
+        train.reverse();
+        train.insertAtPosition(100, new FreightWagon(9999, 1000));
+        for (int position = 1; position <= train.getNumberOfWagons(); position++) {
+            int wagonId = train.findWagonAtPosition(position).getId();
+            assertEquals(position, version.findPosition(wagonId));
+            assertEquals(wagonId, version.findWagonById(wagonId).getId());
+        }
+        assertEquals(0, version.findPosition(0));
+        assertEquals(0, version.findPosition(5002));
+        assertNull(version.findWagonById(4999));
+    }
+}
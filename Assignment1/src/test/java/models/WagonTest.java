@@ -343,4 +343,66 @@ public class WagonTest {
         assertEquals(passengerWagon1, passengerWagon2.getPreviousWagon());
         assertEquals(passengerWagon4, passengerWagon2.getNextWagon());
     }
+
+    @Test
+    public void T06_ASequenceSummaryShouldFollowSingleWagonsAtTheEnds() {
+        passengerWagon1.attachTail(passengerWagon2);
+        SequenceSummary summary = passengerWagon1.getSequenceSummary();
+        assertEquals(2, summary.getNumberOfWagons());
+        assertEquals(54, summary.getTotalNumberOfSeats());
+        assertTrue(summary.isPassengerSequence());
+
+        passengerWagon2.attachTail(passengerWagon3);
+        passengerWagon4.attachTail(passengerWagon1);
+        assertTrue(summary.isValid());
+        assertSame(summary, passengerWagon4.getSequenceSummary());
+        assertEquals(4, summary.getNumberOfWagons());
+        assertEquals(146, summary.getTotalNumberOfSeats());
+        assertEquals(passengerWagon3, summary.getLastWagon());
+
+        // detaching the first wagon leaves the summary with the tail
+        assertEquals(passengerWagon1, passengerWagon4.detachTail());
+        assertSame(summary, passengerWagon1.getSequenceSummary());
+        assertEquals(3, summary.getNumberOfWagons());
+        assertEquals(1, passengerWagon4.getSequenceSummary().getNumberOfWagons());
+    }
+
+    @Test
+    public void T06_ASequenceSummaryShouldFollowReconfiguringTheMiddle() {
+        passengerWagon1.attachTail(passengerWagon2);
+        passengerWagon2.attachTail(passengerWagon3);
+        passengerWagon3.attachTail(passengerWagon4);
+        passengerWagon1.getSequenceSummary();
+
+        passengerWagon2.removeFromSequence();
+        assertTrue(passengerWagon1.hasSequenceSummary());
+        assertEquals(3, passengerWagon1.getSequenceSummary().getNumberOfWagons());
+        assertEquals(128, passengerWagon1.getSequenceSummary().getTotalNumberOfSeats());
+        assertEquals(passengerWagon4, passengerWagon1.getSequenceSummary().getLastWagon());
+    }
+
+    @Test
+    public void T06_BothPartsOfASplitSequenceShouldKeepASummary() {
+        passengerWagon1.attachTail(passengerWagon2);
+        passengerWagon2.attachTail(passengerWagon3);
+        passengerWagon3.attachTail(passengerWagon4);
+        SequenceSummary summary = passengerWagon1.getSequenceSummary();
+
+        // the longer front part keeps the summary, the shorter tail gets a new one
+        assertEquals(passengerWagon4, passengerWagon3.detachTail());
+        assertTrue(passengerWagon4.hasSequenceSummary());
+        assertSame(summary, passengerWagon1.getSequenceSummary());
+        assertEquals(3, summary.getNumberOfWagons());
+        assertEquals(passengerWagon3, summary.getLastWagon());
+        assertEquals(44, passengerWagon4.getSequenceSummary().getTotalNumberOfSeats());
+
+        passengerWagon3.attachTail(passengerWagon4);
+        assertEquals(passengerWagon3, passengerWagon2.detachTail());
+        assertTrue(passengerWagon1.hasSequenceSummary());
+        assertTrue(passengerWagon3.hasSequenceSummary());
+        assertEquals(54, passengerWagon1.getSequenceSummary().getTotalNumberOfSeats());
+        assertEquals(2, passengerWagon3.getSequenceSummary().getNumberOfWagons());
+        assertEquals(92, passengerWagon3.getSequenceSummary().getTotalNumberOfSeats());
+        assertEquals(passengerWagon4, passengerWagon3.getSequenceSummary().getLastWagon());
+    }
 }
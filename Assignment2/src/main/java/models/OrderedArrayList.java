@@ -1,7 +1,9 @@
 package models;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
+import java.util.Objects;
 import java.util.function.BinaryOperator;
 
 public class OrderedArrayList<E>
@@ -76,10 +78,40 @@ public class OrderedArrayList<E>
 
     public void sort() {
         if (this.nSorted < this.size() && this.ordening != null) {
-            this.sort(this.ordening);
+            if (this.nSorted == 0) {
+                this.sort(this.ordening);
+            } else {
+                this.sortUnsortedSection();
+            }
         }
     }
 
+    /**
+     * sorts only the unsorted section nSorted <= index < size() by this.ordening
+     * and merges it linearly into the sorted section.
+     * The merge runs backwards from the end of the list, such that only the items of the sorted section
+     * that are ordered after new items need to move.
+     * Sorting k new items after n sorted items thus takes O(k log k) time plus the number of moved items,
+     * instead of re-sorting all n + k items.
+     */
+    @SuppressWarnings("unchecked")
+    private void sortUnsortedSection() {
+        E[] unsorted = (E[]) this.subList(this.nSorted, this.size()).toArray();
+        Arrays.sort(unsorted, this.ordening);
+
+        int sortedIndex = this.nSorted - 1;
+        int unsortedIndex = unsorted.length - 1;
+        for (int index = this.size() - 1; unsortedIndex >= 0; index--) {
+            // equal items of the sorted section stay in front of the new items
+            if (sortedIndex >= 0 && this.ordening.compare(this.get(sortedIndex), unsorted[unsortedIndex]) > 0) {
+                this.set(index, this.get(sortedIndex--));
+            } else {
+                this.set(index, unsorted[unsortedIndex--]);
+            }
+        }
+        this.nSorted = this.size();
+    }
+
     @Override
     public int indexOf(Object item) {
         if (item != null) {
@@ -223,5 +255,51 @@ public class OrderedArrayList<E>
             return false;
         }
     }
-}
 
+    /**
+     * merges all items of another list into this list, as if each item were merged by merge(item, merger),
+     * but by sorting the items once and merge-joining them with this list in a single linear pass.
+     * Items that have no match in this list are added at their position in the ordening,
+     * and items that match an earlier item of the batch are merged into that item.
+     * Merging k items into a list of n items thus takes O(n + k log k) time, and leaves the list sorted entirely.
+     *
+     * @param items
+     * @param merger a function that takes two items and returns an item that contains the merged content of
+     *               the two items according to some merging rule
+     * @return the number of new items that have been added to the list
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public int mergeAll(OrderedList<E> items, BinaryOperator<E> merger) {
+        if (this.ordening == null) {
+            return OrderedList.super.mergeAll(items, merger);
+        }
+        E[] batch = (E[]) items.stream().filter(Objects::nonNull).toArray();
+        Arrays.sort(batch, this.ordening);
+        this.sort();
+
+        E[] merged = (E[]) new Object[this.size() + batch.length];
+        int numMerged = 0;
+        int index = 0;
+        for (E newItem : batch) {
+            // the items of this list up to the new item keep their order, and equal items of this list come first
+            while (index < this.size() && this.ordening.compare(this.get(index), newItem) <= 0) {
+                merged[numMerged++] = this.get(index++);
+            }
+            if (numMerged > 0 && this.ordening.compare(merged[numMerged - 1], newItem) == 0) {
+                merged[numMerged - 1] = merger.apply(merged[numMerged - 1], newItem);
+            } else {
+                merged[numMerged++] = newItem;
+            }
+        }
+        int numAdded = numMerged - index;
+        while (index < this.size()) {
+            merged[numMerged++] = this.get(index++);
+        }
+
+        super.clear();
+        super.addAll(Arrays.asList(merged).subList(0, numMerged));
+        this.nSorted = this.size();
+        return numAdded;
+    }
+}
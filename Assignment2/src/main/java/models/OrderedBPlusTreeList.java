@@ -0,0 +1,576 @@
+package models;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.BinaryOperator;
+
+/**
+ * An ordered list that is backed by a B+-tree, which keeps all items ordered by the ordening comparator at all times.
+ * The items are kept in leaves of up to ORDER items in arrays, which are chained in order for iteration.
+ * Every inner node keeps up to ORDER children, with the keys that separate them and the number of items
+ * in every child, such that an item can be found by comparison as well as by position.
+ * Hence add, remove, indexOf, merge and get(index) all take O(log n) time,
+ * and no operation needs to shift more than ORDER items.
+ * <p>
+ * Items that are equal by the ordening are kept in the order in which they have been added.
+ * Positional insertions and replacements are only accepted if they sustain the ordening.
+ *
+ * @param <E> the type of the items
+ */
+public class OrderedBPlusTreeList<E>
+        extends AbstractList<E>
+        implements OrderedList<E> {
+
+    private static final int ORDER = 64;            // the maximum number of items of a leaf, or children of an inner node
+    private static final int MIN_FILL = ORDER / 2;  // the minimum number of items or children of a node other than the root
+
+    private Comparator<? super E> ordening;
+    private Node root;
+    private Leaf firstLeaf;
+    // representation-invariant
+    //      all leaves are at the same depth, and every node but the root holds at least MIN_FILL items or children
+    //      the items of all leaves, in the order of the chain from firstLeaf, are ordered by the ordening comparator
+    //      for every inner node: all items in children[0..i] <= keys[i] <= all items in children[i+1..]
+    //                            and counts[i] is the number of items in children[i]
+
+    private abstract static class Node {
+        int size;       // the number of items of a leaf, or the number of children of an inner node
+
+        abstract int count();
+    }
+
+    private static final class Leaf extends Node {
+        final Object[] items = new Object[ORDER];
+        Leaf next;
+
+        @Override
+        int count() {
+            return size;
+        }
+    }
+
+    private static final class Inner extends Node {
+        final Node[] children = new Node[ORDER];
+        final Object[] keys = new Object[ORDER - 1];     // keys[i] separates children[i] and children[i + 1]
+        final int[] counts = new int[ORDER];
+        int total;                                      // the number of items in all children
+
+        @Override
+        int count() {
+            return total;
+        }
+    }
+
+    public OrderedBPlusTreeList(Comparator<? super E> ordening) {
+        if (ordening == null) {
+            throw new IllegalArgumentException("ERROR: an OrderedBPlusTreeList needs an ordening");
+        }
+        this.ordening = ordening;
+        this.clear();
+    }
+
+    @Override
+    public Comparator<? super E> getOrdening() {
+        return this.ordening;
+    }
+
+    @Override
+    public int size() {
+        return this.root.count();
+    }
+
+    @Override
+    public void clear() {
+        this.firstLeaf = new Leaf();
+        this.root = this.firstLeaf;
+        this.modCount++;
+    }
+
+    /**
+     * the items are always ordered, so there is nothing to sort
+     */
+    @Override
+    public void sort() {
+    }
+
+    /**
+     * orders the items by another comparator, which becomes the ordening of the list
+     *
+     * @param c
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public void sort(Comparator<? super E> c) {
+        if (c == null) {
+            throw new IllegalArgumentException("ERROR: an OrderedBPlusTreeList needs an ordening");
+        }
+        E[] items = (E[]) this.toArray();
+        Arrays.sort(items, c);
+        this.ordening = c;
+        this.clear();
+        for (E item : items) {
+            this.insert(this.size(), item);
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E get(int index) {
+        checkIndex(index, this.size());
+        Node node = this.root;
+        while (node instanceof Inner) {
+            Inner inner = (Inner) node;
+            int i = 0;
+            while (index >= inner.counts[i]) {
+                index -= inner.counts[i++];
+            }
+            node = inner.children[i];
+        }
+        return (E) ((Leaf) node).items[index];
+    }
+
+    /**
+     * replaces the item at the given position
+     *
+     * @param index
+     * @param item  an item that fits between its neighbours in the ordening
+     * @return the replaced item
+     * @throws IllegalArgumentException if the item does not fit at the position
+     */
+    @Override
+    public E set(int index, E item) {
+        checkIndex(index, this.size());
+        checkFits(index, index + 1, item);
+        // the item may be the first of a leaf, whose separating keys higher up the tree then change as well,
+        // so it is replaced by a removal and an insertion, which both keep the keys in order
+        E former = this.remove(index);
+        this.insert(index, item);
+        return former;
+    }
+
+    /**
+     * adds the item at its position in the ordening, after any equal items
+     *
+     * @param item
+     * @return true
+     */
+    @Override
+    public boolean add(E item) {
+        this.insert(this.upperBound(item), item);
+        return true;
+    }
+
+    /**
+     * inserts the item at the given position
+     *
+     * @param index
+     * @param item  an item that fits between the items before and at the position in the ordening
+     * @throws IllegalArgumentException if the item does not fit at the position
+     */
+    @Override
+    public void add(int index, E item) {
+        checkIndex(index, this.size() + 1);
+        checkFits(index, index, item);
+        this.insert(index, item);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E remove(int index) {
+        checkIndex(index, this.size());
+        E removed = (E) this.remove(this.root, index);
+        if (this.root instanceof Inner && this.root.size == 1) {
+            this.root = ((Inner) this.root).children[0];
+        }
+        this.modCount++;
+        return removed;
+    }
+
+    /**
+     * removes an item that matches o by the ordening comparator
+     *
+     * @param o
+     * @return whether an item has been removed
+     */
+    @Override
+    public boolean remove(Object o) {
+        int index = this.indexOf(o);
+        if (index < 0) {
+            return false;
+        }
+        this.remove(index);
+        return true;
+    }
+
+    /**
+     * finds the position of the first item that matches the item by the ordening comparator
+     *
+     * @param item
+     * @return the position of the matching item, or -1 if no item matches
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public int indexOf(Object item) {
+        if (item == null) {
+            return -1;
+        }
+        int index = this.lowerBound((E) item);
+        return index < this.size() && this.ordening.compare(this.get(index), (E) item) == 0 ? index : -1;
+    }
+
+    @Override
+    public int indexOfByBinarySearch(E searchItem) {
+        return this.indexOf(searchItem);
+    }
+
+    /**
+     * finds a match of newItem in the list and replaces it by the merger of the match and newItem,
+     * or adds newItem to the list if no match is found
+     *
+     * @param newItem
+     * @param merger  a function that takes two items and returns an item that contains the merged content of
+     *                the two items; the merged item shall be equal to the match by the ordening
+     * @return whether a new item was added to the list or not
+     */
+    @Override
+    public boolean merge(E newItem, BinaryOperator<E> merger) {
+        if (newItem == null) return false;
+        int index = this.lowerBound(newItem);
+        if (index < this.size()) {
+            E item = this.get(index);
+            if (this.ordening.compare(item, newItem) == 0) {
+                this.set(index, merger.apply(item, newItem));
+                return false;
+            }
+        }
+        this.insert(index, newItem);
+        return true;
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return new Iterator<E>() {
+            private Leaf leaf = firstLeaf;
+            private int index = 0;              // the position of the next item in the leaf
+            private int position = 0;           // the position of the next item in the list
+            private int expectedModCount = modCount;
+
+            @Override
+            public boolean hasNext() {
+                return position < size();
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public E next() {
+                if (modCount != expectedModCount) {
+                    throw new ConcurrentModificationException();
+                }
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                while (index >= leaf.size) {
+                    leaf = leaf.next;
+                    index = 0;
+                }
+                position++;
+                return (E) leaf.items[index++];
+            }
+
+            @Override
+            public void remove() {
+                if (modCount != expectedModCount) {
+                    throw new ConcurrentModificationException();
+                }
+                if (position == 0) {
+                    throw new IllegalStateException();
+                }
+                OrderedBPlusTreeList.this.remove(--position);
+                expectedModCount = modCount;
+                // the leaves may have been merged, so find the next item from the first leaf again
+                leaf = firstLeaf;
+                index = position;
+                while (leaf.next != null && index >= leaf.size) {
+                    index -= leaf.size;
+                    leaf = leaf.next;
+                }
+            }
+        };
+    }
+
+    /**
+     * @return the position of the first item that is not ordered before the item
+     */
+    private int lowerBound(E item) {
+        return this.bound(item, 0);
+    }
+
+    /**
+     * @return the position after the last item that is not ordered after the item
+     */
+    private int upperBound(E item) {
+        return this.bound(item, 1);
+    }
+
+    /**
+     * @param item
+     * @param strictness 0 to skip the items that are ordered before the item,
+     *                   1 to also skip the items that are equal to the item
+     * @return the position after the skipped items
+     */
+    @SuppressWarnings("unchecked")
+    private int bound(E item, int strictness) {
+        int index = 0;
+        Node node = this.root;
+        while (node instanceof Inner) {
+            Inner inner = (Inner) node;
+            int i = 0;
+            while (i < inner.size - 1 && this.ordening.compare((E) inner.keys[i], item) < strictness) {
+                index += inner.counts[i++];
+            }
+            node = inner.children[i];
+        }
+        Leaf leaf = (Leaf) node;
+        int left = 0;
+        int right = leaf.size;
+        while (left < right) {
+            int mid = (left + right) >>> 1;
+            if (this.ordening.compare((E) leaf.items[mid], item) < strictness) {
+                left = mid + 1;
+            } else {
+                right = mid;
+            }
+        }
+        return index + left;
+    }
+
+    /**
+     * inserts the item at the given position, which shall sustain the ordening
+     */
+    private void insert(int index, E item) {
+        Node split = this.insert(this.root, index, item);
+        if (split != null) {
+            Inner newRoot = new Inner();
+            newRoot.children[0] = this.root;
+            newRoot.children[1] = split;
+            newRoot.counts[0] = this.root.count();
+            newRoot.counts[1] = split.count();
+            newRoot.keys[0] = this.splitKey;
+            newRoot.size = 2;
+            newRoot.total = newRoot.counts[0] + newRoot.counts[1];
+            this.root = newRoot;
+        }
+        this.modCount++;
+    }
+
+    private Object splitKey;    // the key that separates a node from its new sibling after a split
+
+    /**
+     * inserts the item at the given position in the subtree of node
+     *
+     * @return the new right sibling of node if node has been split, with its separating key in splitKey, or null
+     */
+    @SuppressWarnings("unchecked")
+    private Node insert(Node node, int index, E item) {
+        if (node instanceof Leaf) {
+            Leaf leaf = (Leaf) node;
+            if (leaf.size < ORDER) {
+                insertAt(leaf.items, leaf.size++, index, item);
+                return null;
+            }
+            Leaf right = new Leaf();
+            int half = ORDER / 2;
+            System.arraycopy(leaf.items, half, right.items, 0, ORDER - half);
+            Arrays.fill(leaf.items, half, ORDER, null);
+            leaf.size = half;
+            right.size = ORDER - half;
+            if (index <= half) {
+                insertAt(leaf.items, leaf.size++, index, item);
+            } else {
+                insertAt(right.items, right.size++, index - half, item);
+            }
+            right.next = leaf.next;
+            leaf.next = right;
+            this.splitKey = right.items[0];
+            return right;
+        }
+
+        Inner inner = (Inner) node;
+        int i = 0;
+        while (index > inner.counts[i]
+                || index == inner.counts[i] && i < inner.size - 1
+                && this.ordening.compare(item, (E) inner.keys[i]) > 0) {
+            // the item goes into a later child; at the boundary it follows the separating key
+            index -= inner.counts[i++];
+        }
+        Node child = inner.children[i];
+        Node split = this.insert(child, index, item);
+        inner.total++;
+        if (split == null) {
+            inner.counts[i]++;
+            return null;
+        }
+        inner.counts[i] = child.count();
+        if (inner.size < ORDER) {
+            insertAt(inner.keys, inner.size - 1, i, this.splitKey);
+            insertAt(inner.children, inner.size, i + 1, split);
+            insertAt(inner.counts, inner.size, i + 1, split.count());
+            inner.size++;
+            return null;
+        }
+
+        // split the full inner node, moving the middle key up to the parent
+        Node[] children = Arrays.copyOf(inner.children, ORDER + 1);
+        Object[] keys = Arrays.copyOf(inner.keys, ORDER);
+        int[] counts = Arrays.copyOf(inner.counts, ORDER + 1);
+        insertAt(keys, ORDER - 1, i, this.splitKey);
+        insertAt(children, ORDER, i + 1, split);
+        insertAt(counts, ORDER, i + 1, split.count());
+        Inner right = new Inner();
+        int half = (ORDER + 1) / 2;
+        fill(inner, children, keys, counts, 0, half);
+        fill(right, children, keys, counts, half, ORDER + 1);
+        this.splitKey = keys[half - 1];
+        return right;
+    }
+
+    /**
+     * removes the item at the given position in the subtree of node, and rebalances the children of node
+     *
+     * @return the removed item
+     */
+    private Object remove(Node node, int index) {
+        if (node instanceof Leaf) {
+            Leaf leaf = (Leaf) node;
+            Object removed = leaf.items[index];
+            System.arraycopy(leaf.items, index + 1, leaf.items, index, leaf.size - index - 1);
+            leaf.items[--leaf.size] = null;
+            return removed;
+        }
+
+        Inner inner = (Inner) node;
+        int i = 0;
+        while (index >= inner.counts[i]) {
+            index -= inner.counts[i++];
+        }
+        Object removed = this.remove(inner.children[i], index);
+        inner.counts[i]--;
+        inner.total--;
+        if (inner.children[i].size < MIN_FILL) {
+            this.rebalance(inner, i > 0 ? i - 1 : i);
+        }
+        return removed;
+    }
+
+    /**
+     * merges the children l and l + 1 of inner if their items or children fit in a single node,
+     * or redistributes the items or children evenly over both otherwise
+     */
+    private void rebalance(Inner inner, int l) {
+        Node left = inner.children[l];
+        Node right = inner.children[l + 1];
+        int total = left.size + right.size;
+
+        if (left instanceof Leaf) {
+            Leaf leftLeaf = (Leaf) left;
+            Leaf rightLeaf = (Leaf) right;
+            Object[] items = Arrays.copyOf(leftLeaf.items, total);
+            System.arraycopy(rightLeaf.items, 0, items, leftLeaf.size, rightLeaf.size);
+            int half = total <= ORDER ? total : total / 2;
+            Arrays.fill(leftLeaf.items, null);
+            Arrays.fill(rightLeaf.items, null);
+            System.arraycopy(items, 0, leftLeaf.items, 0, half);
+            System.arraycopy(items, half, rightLeaf.items, 0, total - half);
+            leftLeaf.size = half;
+            rightLeaf.size = total - half;
+            if (total > ORDER) {
+                inner.keys[l] = rightLeaf.items[0];
+            } else {
+                leftLeaf.next = rightLeaf.next;
+            }
+        } else {
+            Inner leftInner = (Inner) left;
+            Inner rightInner = (Inner) right;
+            Node[] children = Arrays.copyOf(leftInner.children, total);
+            Object[] keys = Arrays.copyOf(leftInner.keys, total - 1);
+            int[] counts = Arrays.copyOf(leftInner.counts, total);
+            System.arraycopy(rightInner.children, 0, children, leftInner.size, rightInner.size);
+            keys[leftInner.size - 1] = inner.keys[l];
+            System.arraycopy(rightInner.keys, 0, keys, leftInner.size, rightInner.size - 1);
+            System.arraycopy(rightInner.counts, 0, counts, leftInner.size, rightInner.size);
+            int half = total <= ORDER ? total : total / 2;
+            fill(leftInner, children, keys, counts, 0, half);
+            if (total > ORDER) {
+                fill(rightInner, children, keys, counts, half, total);
+                inner.keys[l] = keys[half - 1];
+            }
+        }
+
+        inner.counts[l] = left.count();
+        if (total > ORDER) {
+            inner.counts[l + 1] = right.count();
+        } else {
+            // the right node has been merged into the left node
+            removeAt(inner.keys, inner.size - 1, l);
+            removeAt(inner.children, inner.size, l + 1);
+            removeAt(inner.counts, inner.size, l + 1);
+            inner.size--;
+        }
+    }
+
+    /**
+     * fills the inner node with the children from <= i < to, the keys between them and their counts
+     */
+    private static void fill(Inner inner, Node[] children, Object[] keys, int[] counts, int from, int to) {
+        Arrays.fill(inner.children, null);
+        Arrays.fill(inner.keys, null);
+        System.arraycopy(children, from, inner.children, 0, to - from);
+        System.arraycopy(keys, from, inner.keys, 0, to - from - 1);
+        System.arraycopy(counts, from, inner.counts, 0, to - from);
+        inner.size = to - from;
+        inner.total = 0;
+        for (int i = 0; i < inner.size; i++) {
+            inner.total += inner.counts[i];
+        }
+    }
+
+    private static void insertAt(Object[] array, int size, int index, Object value) {
+        System.arraycopy(array, index, array, index + 1, size - index);
+        array[index] = value;
+    }
+
+    private static void insertAt(int[] array, int size, int index, int value) {
+        System.arraycopy(array, index, array, index + 1, size - index);
+        array[index] = value;
+    }
+
+    private static void removeAt(Object[] array, int size, int index) {
+        System.arraycopy(array, index + 1, array, index, size - index - 1);
+        array[size - 1] = null;
+    }
+
+    private static void removeAt(int[] array, int size, int index) {
+        System.arraycopy(array, index + 1, array, index, size - index - 1);
+    }
+
+    private static void checkIndex(int index, int size) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + size);
+        }
+    }
+
+    /**
+     * checks that the item can be placed after the item at from - 1 and before the item at to
+     */
+    private void checkFits(int from, int to, E item) {
+        if (item == null
+                || from > 0 && this.ordening.compare(this.get(from - 1), item) > 0
+                || to < this.size() && this.ordening.compare(item, this.get(to)) > 0) {
+            throw new IllegalArgumentException("ERROR: the item does not fit at position " + from + " in the ordening");
+        }
+    }
+}
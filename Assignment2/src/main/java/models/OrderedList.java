@@ -12,6 +12,24 @@ public interface OrderedList<E> extends List<E> {
 
     boolean merge(E item, BinaryOperator<E> merger);
 
+    /**
+     * merges all items of another list into this list, as if each item were merged by merge(item, merger)
+     *
+     * @param items
+     * @param merger a function that takes two items and returns an item that contains the merged content of
+     *               the two items according to some merging rule
+     * @return the number of new items that have been added to the list
+     */
+    default int mergeAll(OrderedList<E> items, BinaryOperator<E> merger) {
+        int numAdded = 0;
+        for (E item : items) {
+            if (merge(item, merger)) {
+                numAdded++;
+            }
+        }
+        return numAdded;
+    }
+
     Comparator<? super E> getOrdening();
 
     default double aggregate(ToDoubleFunction<E> mapper) {
@@ -0,0 +1,175 @@
+package models;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * A catalog of products, indexed by barcode in a hash table with open addressing and linear probing.
+ * The barcodes are kept as primitive longs, so looking up a product neither boxes the barcode into a Long
+ * nor allocates any other object, and takes constant time on average.
+ * Every product also gets an ordinal, 0 <= ordinal < size(), in the order in which the products have been added,
+ * which can be used to index arrays with information per product.
+ */
+public class ProductCatalog {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private long[] barcodes;
+    private Product[] products;     // products[i] == null marks an empty slot
+    private int[] ordinals;         // the ordinal of the product in each slot
+    private Product[] byOrdinal;    // the products by ordinal
+    private int size;
+
+    /* Representation invariants:
+        barcodes.length == products.length is a power of two
+        size < barcodes.length / 2
+        barcodes[i] == products[i].getBarcode() for every occupied slot i
+        byOrdinal[ordinals[i]] == products[i] for every occupied slot i, and byOrdinal[size..] are null
+        every barcode can be found by probing linearly from its home slot without crossing an empty slot
+     */
+
+    public ProductCatalog() {
+        barcodes = new long[INITIAL_CAPACITY];
+        products = new Product[INITIAL_CAPACITY];
+        ordinals = new int[INITIAL_CAPACITY];
+        byOrdinal = new Product[INITIAL_CAPACITY / 2];
+    }
+
+    /**
+     * creates a catalog of the given products
+     *
+     * @param products
+     */
+    public ProductCatalog(Collection<Product> products) {
+        this();
+        int capacity = INITIAL_CAPACITY;
+        while (capacity / 2 <= products.size()) {
+            capacity *= 2;
+        }
+        resize(capacity);
+        byOrdinal = new Product[capacity / 2];
+        for (Product product : products) {
+            put(product);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * finds the product with the given barcode
+     *
+     * @param barcode
+     * @return the product with the barcode, or null if the catalog has no such product
+     */
+    public Product get(long barcode) {
+        int slot = slotOf(barcode);
+        return slot < 0 ? null : products[slot];
+    }
+
+    public boolean contains(long barcode) {
+        return slotOf(barcode) >= 0;
+    }
+
+    /**
+     * finds the ordinal of the product with the given barcode
+     *
+     * @param barcode
+     * @return the ordinal of the product with the barcode, or -1 if the catalog has no such product
+     */
+    public int ordinalOf(long barcode) {
+        int slot = slotOf(barcode);
+        return slot < 0 ? -1 : ordinals[slot];
+    }
+
+    /**
+     * @param ordinal 0 <= ordinal < size()
+     * @return the product with the given ordinal
+     */
+    public Product getByOrdinal(int ordinal) {
+        if (ordinal < 0 || ordinal >= size) {
+            throw new IndexOutOfBoundsException("ERROR: no product with ordinal " + ordinal);
+        }
+        return byOrdinal[ordinal];
+    }
+
+    private int slotOf(long barcode) {
+        int mask = barcodes.length - 1;
+        for (int slot = homeSlot(barcode, mask); products[slot] != null; slot = (slot + 1) & mask) {
+            if (barcodes[slot] == barcode) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * adds the product to the catalog, replacing any former product with the same barcode
+     *
+     * @param product
+     * @return the former product with the same barcode, or null if there was none
+     */
+    public Product put(Product product) {
+        if (product == null) {
+            throw new IllegalArgumentException("ERROR: a catalog cannot hold null products");
+        }
+        long barcode = product.getBarcode();
+        int mask = barcodes.length - 1;
+        int slot = homeSlot(barcode, mask);
+        while (products[slot] != null) {
+            if (barcodes[slot] == barcode) {
+                Product former = products[slot];
+                products[slot] = product;
+                byOrdinal[ordinals[slot]] = product;
+                return former;
+            }
+            slot = (slot + 1) & mask;
+        }
+        if (size == byOrdinal.length) {
+            byOrdinal = Arrays.copyOf(byOrdinal, 2 * size);
+        }
+        barcodes[slot] = barcode;
+        products[slot] = product;
+        ordinals[slot] = size;
+        byOrdinal[size] = product;
+        if (++size >= barcodes.length / 2) {
+            resize(barcodes.length * 2);
+        }
+        return null;
+    }
+
+    public void clear() {
+        if (size > 0) {
+            Arrays.fill(products, null);
+            Arrays.fill(byOrdinal, 0, size, null);
+            size = 0;
+        }
+    }
+
+    private void resize(int capacity) {
+        long[] oldBarcodes = barcodes;
+        Product[] oldProducts = products;
+        int[] oldOrdinals = ordinals;
+        barcodes = new long[capacity];
+        products = new Product[capacity];
+        ordinals = new int[capacity];
+        int mask = capacity - 1;
+        for (int i = 0; i < oldBarcodes.length; i++) {
+            if (oldProducts[i] != null) {
+                int slot = homeSlot(oldBarcodes[i], mask);
+                while (products[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                barcodes[slot] = oldBarcodes[i];
+                products[slot] = oldProducts[i];
+                ordinals[slot] = oldOrdinals[i];
+            }
+        }
+    }
+
+    private static int homeSlot(long barcode, int mask) {
+        // spread the bits of barcodes, which often share their prefix and differ in a few digits only
+        long h = barcode * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+}
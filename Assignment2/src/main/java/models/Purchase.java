@@ -24,23 +24,14 @@ public class Purchase {
     public static Purchase fromLine(String textLine, List<Product> products) {
         Purchase newPurchase = null;
 
-        // TODO convert the information in the textLine to a new Purchase instance
-        //  use the products.indexOf to find the product that is associated with the barcode of the purchase
         // Read the text line and put the fields into a string array
         String[] fields = textLine.split(",");
 
         long barcode = Long.parseLong(fields[0].trim());
         int amount = Integer.parseInt(fields[1].trim());
 
-        int productIndex = -1;
-
-        // Loop to find out if the product exists
-        for (int i = 0; i < products.size(); i++) {
-            if (products.get(i).getBarcode() == barcode) {
-                productIndex = i;
-                break;
-            }
-        }
+        // find the product by its barcode, which is a binary search if the products are an ordered list
+        int productIndex = products.indexOf(new Product(barcode));
 
         if (productIndex < 0) return null;
 
@@ -51,6 +42,23 @@ public class Purchase {
         return newPurchase;
     }
 
+    /**
+     * parses purchase summary information from a textLine with format: barcode, amount
+     *
+     * @param textLine
+     * @param catalog  the catalog of the products, which finds the product of the barcode in constant time
+     * @return a new Purchase instance with the provided information
+     * or null if the textLine is corrupt or incomplete, or the catalog has no product with the barcode
+     */
+    public static Purchase fromLine(String textLine, ProductCatalog catalog) {
+        String[] fields = textLine.split(",");
+
+        Product product = catalog.get(Long.parseLong(fields[0].trim()));
+        if (product == null) return null;
+
+        return new Purchase(product, Integer.parseInt(fields[1].trim()));
+    }
+
     /**
      * add a delta amount to the count of the purchase summary instance
      *
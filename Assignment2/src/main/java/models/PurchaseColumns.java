@@ -0,0 +1,168 @@
+package models;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * A columnar store of aggregated purchases, which keeps the barcodes, counts and price indexes
+ * of the purchases in separate primitive arrays, and the prices of the products in a table by catalog ordinal.
+ * Aggregations over the purchases run as tight loops over these arrays,
+ * without visiting any Purchase or Product objects and without boxing.
+ */
+public class PurchaseColumns {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final ProductCatalog catalog;
+    private final double[] prices;      // the price of every product in the catalog, by ordinal
+    private long[] barcodes;
+    private int[] counts;
+    private int[] priceIndexes;         // the ordinal of the product of every purchase
+    private int size;
+
+    /**
+     * creates an empty store for purchases of the products in the catalog,
+     * with the prices the products have at this moment
+     *
+     * @param catalog
+     */
+    public PurchaseColumns(ProductCatalog catalog) {
+        this.catalog = catalog;
+        this.prices = new double[catalog.size()];
+        for (int ordinal = 0; ordinal < prices.length; ordinal++) {
+            prices[ordinal] = catalog.getByOrdinal(ordinal).getPrice();
+        }
+        this.barcodes = new long[INITIAL_CAPACITY];
+        this.counts = new int[INITIAL_CAPACITY];
+        this.priceIndexes = new int[INITIAL_CAPACITY];
+    }
+
+    /**
+     * creates a store of the given purchases of products in the catalog
+     *
+     * @param purchases
+     * @param catalog
+     * @return the new store
+     */
+    public static PurchaseColumns of(Collection<Purchase> purchases, ProductCatalog catalog) {
+        PurchaseColumns columns = new PurchaseColumns(catalog);
+        columns.ensureCapacity(purchases.size());
+        for (Purchase purchase : purchases) {
+            columns.add(purchase.getBarcode(), purchase.getCount());
+        }
+        return columns;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * adds a purchase
+     *
+     * @param barcode the barcode of a product in the catalog
+     * @param count
+     * @throws IllegalArgumentException if the catalog has no product with the barcode
+     */
+    public void add(long barcode, int count) {
+        int ordinal = catalog.ordinalOf(barcode);
+        if (ordinal < 0 || ordinal >= prices.length) {
+            throw new IllegalArgumentException("ERROR: no product with barcode " + barcode);
+        }
+        ensureCapacity(size + 1);
+        barcodes[size] = barcode;
+        counts[size] = count;
+        priceIndexes[size] = ordinal;
+        size++;
+    }
+
+    public long getBarcode(int index) {
+        checkIndex(index);
+        return barcodes[index];
+    }
+
+    public int getCount(int index) {
+        checkIndex(index);
+        return counts[index];
+    }
+
+    public double getPrice(int index) {
+        checkIndex(index);
+        return prices[priceIndexes[index]];
+    }
+
+    /**
+     * @param index
+     * @return a new Purchase instance of the purchase at the index
+     */
+    public Purchase getPurchase(int index) {
+        checkIndex(index);
+        return new Purchase(catalog.getByOrdinal(priceIndexes[index]), counts[index]);
+    }
+
+    /**
+     * @return the sum of the counts of all purchases
+     */
+    public long totalCount() {
+        long sum = 0;
+        for (int index = 0; index < size; index++) {
+            sum += counts[index];
+        }
+        return sum;
+    }
+
+    /**
+     * @return the sum of the revenues, count * price, of all purchases
+     */
+    public double totalRevenue() {
+        // floating-point additions may not be reordered by the JIT compiler, so independent accumulators
+        // keep successive additions from waiting for each other; the prices are gathered through priceIndexes,
+        // which the JIT compiler does not vectorize, and the Vector API is not available on Java 11
+        double sum0 = 0, sum1 = 0, sum2 = 0, sum3 = 0;
+        int index = 0;
+        for (; index + 3 < size; index += 4) {
+            sum0 += counts[index] * prices[priceIndexes[index]];
+            sum1 += counts[index + 1] * prices[priceIndexes[index + 1]];
+            sum2 += counts[index + 2] * prices[priceIndexes[index + 2]];
+            sum3 += counts[index + 3] * prices[priceIndexes[index + 3]];
+        }
+        for (; index < size; index++) {
+            sum0 += counts[index] * prices[priceIndexes[index]];
+        }
+        return (sum0 + sum1) + (sum2 + sum3);
+    }
+
+    /**
+     * maps the columns of a single purchase to a quantity
+     */
+    @FunctionalInterface
+    public interface Mapper {
+        double applyAsDouble(long barcode, int count, double price);
+    }
+
+    /**
+     * @param mapper
+     * @return the sum of the quantities that the mapper yields for all purchases
+     */
+    public double aggregate(Mapper mapper) {
+        double sum = 0;
+        for (int index = 0; index < size; index++) {
+            sum += mapper.applyAsDouble(barcodes[index], counts[index], prices[priceIndexes[index]]);
+        }
+        return sum;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > barcodes.length) {
+            int newCapacity = Math.max(capacity, 2 * barcodes.length);
+            barcodes = Arrays.copyOf(barcodes, newCapacity);
+            counts = Arrays.copyOf(counts, newCapacity);
+            priceIndexes = Arrays.copyOf(priceIndexes, newCapacity);
+        }
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + size);
+        }
+    }
+}
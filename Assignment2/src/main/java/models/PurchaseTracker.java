@@ -2,10 +2,15 @@ package models;
 
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.nio.charset.StandardCharsets;
 import java.util.Comparator;
+import java.util.Deque;
 import java.util.List;
 import java.util.Objects;
 import java.util.Scanner;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 import java.util.function.Function;
 
 public class PurchaseTracker {
@@ -13,12 +18,18 @@ public class PurchaseTracker {
 
     private OrderedList<Product> products;        // the reference list of all Products available from the SuperMarket chain
     private OrderedList<Purchase> purchases;      // the aggregated volumes of all purchases of all products across all branches
+    private ProductCatalog catalog;               // the products indexed by barcode, for resolving the barcodes of purchases
+    // the spare tables of purchases by catalog ordinal of the import in progress, or null between imports;
+    // every file that is imported borrows a table and returns it with the slots it has filled cleared again,
+    // so no more tables are allocated than files are imported at the same time, and all are released afterwards
+    private Deque<Purchase[]> purchaseTables;
 
     public PurchaseTracker() {
         // TODO initialize products and purchases with an empty ordered list which sorts items by barcode.
         //  Use your generic implementation class OrderedArrayList
         products = new OrderedArrayList<>(Comparator.comparingLong(Product::getBarcode));
         purchases = new OrderedArrayList<>(Comparator.comparingLong(Purchase::getBarcode));
+        catalog = new ProductCatalog();
     }
 
     /**
@@ -30,13 +41,16 @@ public class PurchaseTracker {
         this.products.clear();
 
         // load all products from the text file
-        importItemsFromFile(this.products,
+        VaultFileParser.parseProducts(
                 PurchaseTracker.class.getResource(resourceName).getPath(),
-                Product::fromLine);
+                (barcode, title, price) -> this.products.add(new Product(barcode, title, price)));
 
         // sort the products for efficient later retrieval
         this.products.sort();
 
+        // index the products by barcode for resolving the purchases
+        this.catalog = new ProductCatalog(this.products);
+
         System.out.printf("Imported %d products from %s.\n", products.size(), resourceName);
     }
 
@@ -48,8 +62,13 @@ public class PurchaseTracker {
     public void importPurchasesFromVault(String resourceName) {
         this.purchases.clear();
 
-        mergePurchasesFromFileRecursively(
-                PurchaseTracker.class.getResource(resourceName).getPath());
+        this.purchaseTables = new ConcurrentLinkedDeque<>();
+        try {
+            mergePurchasesFromFileRecursively(
+                    PurchaseTracker.class.getResource(resourceName).getPath());
+        } finally {
+            this.purchaseTables = null;
+        }
 
         System.out.printf("Accumulated purchases of %d products from files in %s.\n", this.purchases.size(), resourceName);
     }
@@ -79,6 +98,68 @@ public class PurchaseTracker {
         }
     }
 
+    /**
+     * imports and merges all raw purchase data of all branches from the hierarchical file structure of the vault,
+     * like importPurchasesFromVault, but parses the files of the vault concurrently in the common fork-join pool
+     *
+     * @param resourceName
+     */
+    public void importPurchasesFromVaultInParallel(String resourceName) {
+        this.purchases.clear();
+
+        File vault = new File(PurchaseTracker.class.getResource(resourceName).getPath());
+        this.purchaseTables = new ConcurrentLinkedDeque<>();
+        try {
+            this.purchases.addAll(ForkJoinPool.commonPool().invoke(new VaultImportTask(new File[]{vault}, 0, 1)));
+        } finally {
+            this.purchaseTables = null;
+        }
+        this.purchases.sort();
+
+        System.out.printf("Accumulated purchases of %d products from files in %s.\n", this.purchases.size(), resourceName);
+    }
+
+    /**
+     * a task that aggregates the purchases of a range of files and sub folders of the vault by barcode.
+     * A range of more than one file is split in halves that are aggregated by parallel tasks,
+     * after which their partial aggregates are combined by a single merge-join.
+     */
+    private class VaultImportTask extends RecursiveTask<OrderedList<Purchase>> {
+        private static final long serialVersionUID = 1L;
+
+        private final File[] files;
+        private final int from;     // the range of files from <= index < to to be aggregated
+        private final int to;
+
+        VaultImportTask(File[] files, int from, int to) {
+            this.files = files;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected OrderedList<Purchase> compute() {
+            if (to - from > 1) {
+                int middle = (from + to) >>> 1;
+                VaultImportTask front = new VaultImportTask(files, from, middle);
+                front.fork();
+                OrderedList<Purchase> rear = new VaultImportTask(files, middle, to).compute();
+                OrderedList<Purchase> combined = front.join();
+                combined.mergeAll(rear, PurchaseTracker::addCounts);
+                return combined;
+            }
+
+            File file = from < to ? files[from] : null;
+            if (file != null && file.isDirectory()) {
+                File[] filesInDirectory = Objects.requireNonNullElse(file.listFiles(), new File[0]);
+                return new VaultImportTask(filesInDirectory, 0, filesInDirectory.length).compute();
+            } else if (file != null && file.getName().matches(PURCHASE_FILE_PATTERN)) {
+                return importPurchasesFromFile(file.getAbsolutePath());
+            }
+            return new OrderedArrayList<>(purchases.getOrdening());
+        }
+    }
+
     /**
      * show the top n purchases according to the ranking criterium specified by ranker
      *
@@ -105,12 +186,12 @@ public class PurchaseTracker {
      * shows total volume and total revenue sales statistics
      */
     public void showTotals() {
-        // TODO provide the mappers to calculate the specified aggregated quantities
-        System.out.printf("Total volume of all purchases: %.0f\n",
-                purchases.aggregate(Purchase::getCount));
+        // aggregate over the columns of the purchases, instead of over the Purchase and Product instances
+        PurchaseColumns columns = this.getPurchaseColumns();
+        System.out.printf("Total volume of all purchases: %d\n",
+                columns.totalCount());
         System.out.printf("Total revenue from all purchases: %.2f\n",
-
-                purchases.aggregate(Purchase::getRevenue));
+                columns.totalRevenue());
     }
 
     /**
@@ -153,34 +234,67 @@ public class PurchaseTracker {
     private void mergePurchasesFromFile(String filePath) {
         int originalNumPurchases = purchases.size();
 
-        // create a temporary ordered list for the additional purchases, ordered by same comparator as the main list
-        OrderedList<Purchase> newPurchases = new OrderedArrayList<>(this.purchases.getOrdening());
+        // import all purchases from the specified file into a temporary list for the additional purchases,
+        // ordered by same comparator as the main list
+        OrderedList<Purchase> newPurchases = importPurchasesFromFile(filePath);
 
-        // re-sort the accumulated purchases for efficient searching
-        this.purchases.sort();
-
-        // TODO import all purchases from the specified file into the newPurchases list
-        importItemsFromFile(newPurchases, filePath,
-                (s) -> Purchase.fromLine(s, this.products)
-        );
-
-        // TODO merge all purchases from the newPurchases list into this.purchases
-        for (Purchase purchase : newPurchases) {
-            this.purchases.merge(purchase,
-                    (Purchase p1, Purchase p2) -> {
-                        p1.setCount(p1.getCount() + p2.getCount());
-                        return p1;
-                    }
-            );
-        }
+        // merge all purchases from the newPurchases list into this.purchases, in a single merge-join
+        this.purchases.mergeAll(newPurchases, PurchaseTracker::addCounts);
 
         int addedCount = purchases.size() - originalNumPurchases;
 //        System.out.printf("Merged %d, added %d new purchases from %s.\n", newPurchases.size() - addedCount, addedCount, filePath);
     }
 
-    private Purchase purchaseConverter(String textLine) {
-        Purchase newPurchase = Purchase.fromLine(textLine, products);
-        return newPurchase;
+    /**
+     * imports the raw purchase data from the filePath text file, resolving the barcodes by the catalog.
+     * The purchases of the file are aggregated by product while the file is being parsed,
+     * such that only a new Purchase instance is created for every distinct product in the file,
+     * instead of a new Purchase instance, split fields and parsed numbers for every line.
+     * The table of purchases by ordinal is borrowed from the spare tables of the import in progress,
+     * so a file costs time in proportion to its own size, and not to the size of the catalog.
+     *
+     * @param filePath
+     * @return a new unsorted list with a single purchase of every product in the file
+     */
+    private OrderedList<Purchase> importPurchasesFromFile(String filePath) {
+        OrderedList<Purchase> newPurchases = new OrderedArrayList<>(this.purchases.getOrdening());
+        Purchase[] spareTable = this.purchaseTables.poll();
+        Purchase[] purchasesByOrdinal = spareTable != null && spareTable.length >= this.catalog.size()
+                ? spareTable : new Purchase[this.catalog.size()];
+
+        try {
+            VaultFileParser.parsePurchases(filePath, (barcode, count) -> {
+                int ordinal = this.catalog.ordinalOf(barcode);
+                if (ordinal < 0) return;
+
+                Purchase purchase = purchasesByOrdinal[ordinal];
+                if (purchase == null) {
+                    purchase = new Purchase(this.catalog.getByOrdinal(ordinal), 0);
+                    purchasesByOrdinal[ordinal] = purchase;
+                    newPurchases.add(purchase);
+                }
+                purchase.addCount(count);
+            });
+        } finally {
+            // clear the slots of this file for the next file, also if the file could not be parsed completely
+            for (Purchase purchase : newPurchases) {
+                purchasesByOrdinal[this.catalog.ordinalOf(purchase.getBarcode())] = null;
+            }
+            this.purchaseTables.push(purchasesByOrdinal);
+        }
+        return newPurchases;
+    }
+
+    /**
+     * merges the count of the second purchase into the first purchase
+     *
+     * @param p1
+     * @param p2
+     * @return the first purchase
+     */
+    private static Purchase addCounts(Purchase p1, Purchase p2) {
+        p1.setCount(p1.getCount() + p2.getCount());
+        return p1;
     }
 
     /**
@@ -191,7 +305,7 @@ public class PurchaseTracker {
      */
     private static Scanner createFileScanner(String filePath) {
         try {
-            return new Scanner(new File(filePath));
+            return new Scanner(new File(filePath), StandardCharsets.UTF_8.name());
         } catch (FileNotFoundException e) {
             throw new RuntimeException("FileNotFound exception on path: " + filePath);
         }
@@ -204,4 +318,11 @@ public class PurchaseTracker {
     public List<Purchase> getPurchases() {
         return purchases;
     }
+
+    /**
+     * @return a new columnar store of the accumulated purchases, for efficient aggregation
+     */
+    public PurchaseColumns getPurchaseColumns() {
+        return PurchaseColumns.of(this.purchases, this.catalog);
+    }
 }
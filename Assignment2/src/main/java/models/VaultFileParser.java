@@ -0,0 +1,304 @@
+package models;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Parses the text files of the vault straight from memory-mapped bytes, without Scanner, split, trim or parse calls.
+ * The numeric fields of every line are decoded in place and handed to a callback as primitives,
+ * so parsing a purchase line allocates no objects at all.
+ * <p>
+ * Lines have comma separated fields, with optional blanks around every field, and may end with \n or \r\n.
+ * Fields beyond the expected ones are ignored. Blank lines and lines that are corrupt or incomplete are skipped.
+ */
+public class VaultFileParser {
+    // the maximum number of bytes of a file that is mapped at once; a single line cannot be longer
+    private static final int WINDOW_SIZE = 1 << 30;
+    // the powers of ten that can be represented exactly by a double
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+    // the largest mantissa that can be represented exactly by a double
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+    /**
+     * receives the fields of a purchase line with format: barcode, amount
+     */
+    @FunctionalInterface
+    public interface PurchaseConsumer {
+        void accept(long barcode, int count);
+    }
+
+    /**
+     * receives the fields of a product line with format: barcode, title, price
+     */
+    @FunctionalInterface
+    public interface ProductConsumer {
+        void accept(long barcode, String title, double price);
+    }
+
+    /**
+     * parses all purchase lines of a file with format: barcode, amount
+     *
+     * @param filePath
+     * @param consumer receives the barcode and the amount of every purchase line
+     * @return the number of purchase lines that have been parsed
+     */
+    public static int parsePurchases(String filePath, PurchaseConsumer consumer) {
+        return parseLines(filePath, line -> {
+            long barcode = line.nextLong();
+            line.nextSeparator();
+            long count = line.nextLong();
+            if (!line.isValid() || !line.atEndOfField() || count != (int) count) {
+                return false;
+            }
+            consumer.accept(barcode, (int) count);
+            return true;
+        });
+    }
+
+    /**
+     * parses all product lines of a file with format: barcode, title, price
+     *
+     * @param filePath
+     * @param consumer receives the barcode, the title and the price of every product line
+     * @return the number of product lines that have been parsed
+     */
+    public static int parseProducts(String filePath, ProductConsumer consumer) {
+        return parseLines(filePath, line -> {
+            long barcode = line.nextLong();
+            line.nextSeparator();
+            String title = line.nextText();
+            line.nextSeparator();
+            double price = line.nextDouble();
+            if (!line.isValid() || !line.atEndOfField()) {
+                return false;
+            }
+            consumer.accept(barcode, title, price);
+            return true;
+        });
+    }
+
+    /**
+     * parses the fields of a single line
+     */
+    private interface LineHandler {
+        /**
+         * @param line
+         * @return whether the line was well-formed and has been handed to the callback
+         */
+        boolean handle(Line line);
+    }
+
+    /**
+     * maps the file into memory, window by window, and hands every line that is not blank to the handler
+     *
+     * @param filePath
+     * @param handler
+     * @return the number of lines that have been handled successfully
+     */
+    private static int parseLines(String filePath, LineHandler handler) {
+        try (FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ)) {
+            long size = channel.size();
+            Line line = new Line();
+            int numLines = 0;
+            long offset = 0;
+            while (offset < size) {
+                int length = (int) Math.min(WINDOW_SIZE, size - offset);
+                ByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+                int from = 0;
+                for (int index = 0; index < length; index++) {
+                    if (window.get(index) == '\n') {
+                        numLines += parseLine(window, from, index, line, handler);
+                        from = index + 1;
+                    }
+                }
+                if (offset + length == size) {
+                    // the last line of the file need not end with a newline
+                    numLines += parseLine(window, from, length, line, handler);
+                    from = length;
+                } else if (from == 0) {
+                    throw new IllegalArgumentException("ERROR: line too long at offset " + offset + " of " + filePath);
+                }
+                // continue with the next window at the start of the line that has not been parsed yet
+                offset += from;
+            }
+            return numLines;
+        } catch (IOException e) {
+            throw new RuntimeException("IO exception on path: " + filePath);
+        }
+    }
+
+    private static int parseLine(ByteBuffer window, int from, int to, Line line, LineHandler handler) {
+        if (to > from && window.get(to - 1) == '\r') {
+            to--;
+        }
+        line.reset(window, from, to);
+        if (line.isBlank()) {
+            return 0;
+        }
+        return handler.handle(line) ? 1 : 0;
+    }
+
+    /**
+     * a cursor on the bytes of a single line, which decodes its fields one by one.
+     * A field that cannot be decoded invalidates the line.
+     */
+    private static class Line {
+        private ByteBuffer buffer;
+        private int position;           // the position of the next byte to be decoded
+        private int end;                // the end of the line, excluding the line terminator
+        private boolean valid;          // whether all fields of the line have been decoded successfully
+
+        void reset(ByteBuffer buffer, int from, int to) {
+            this.buffer = buffer;
+            this.position = from;
+            this.end = to;
+            this.valid = true;
+        }
+
+        boolean isValid() {
+            return valid;
+        }
+
+        boolean isBlank() {
+            skipBlanks();
+            return position == end;
+        }
+
+        /**
+         * @return whether the current field has been decoded completely, i.e. only a separator or the end of the line follows
+         */
+        boolean atEndOfField() {
+            skipBlanks();
+            return position == end || buffer.get(position) == ',';
+        }
+
+        void nextSeparator() {
+            skipBlanks();
+            if (position < end && buffer.get(position) == ',') {
+                position++;
+            } else {
+                valid = false;
+            }
+        }
+
+        /**
+         * decodes an integer field of an optional sign and decimal digits
+         */
+        long nextLong() {
+            skipBlanks();
+            boolean negative = position < end && buffer.get(position) == '-';
+            if (negative) {
+                position++;
+            }
+            int start = position;
+            long value = 0;
+            while (position < end && isDigit(buffer.get(position))) {
+                int digit = buffer.get(position++) - '0';
+                if (value > (Long.MAX_VALUE - digit) / 10) {
+                    valid = false;
+                    return 0;
+                }
+                value = 10 * value + digit;
+            }
+            if (position == start) {
+                valid = false;
+            }
+            return negative ? -value : value;
+        }
+
+        /**
+         * decodes a decimal field of an optional sign, digits and a fraction.
+         * The value equals the result of Double.parseDouble, which is used for fields in any other notation
+         * and for fields with more digits than fit exactly in a double.
+         */
+        double nextDouble() {
+            skipBlanks();
+            int start = position;
+            boolean negative = position < end && buffer.get(position) == '-';
+            if (negative) {
+                position++;
+            }
+            long mantissa = 0;
+            int numDigits = 0;
+            int numFractionDigits = -1;     // -1 until the decimal point has been found
+            while (position < end) {
+                byte b = buffer.get(position);
+                if (isDigit(b)) {
+                    if (mantissa < MAX_EXACT_MANTISSA) {
+                        mantissa = 10 * mantissa + (b - '0');
+                    }
+                    numDigits++;
+                    if (numFractionDigits >= 0) {
+                        numFractionDigits++;
+                    }
+                } else if (b == '.' && numFractionDigits < 0) {
+                    numFractionDigits = 0;
+                } else {
+                    break;
+                }
+                position++;
+            }
+            if (numDigits == 0 && position < end && buffer.get(position) != ',' || !atEndOfField()
+                    || mantissa >= MAX_EXACT_MANTISSA || numFractionDigits >= POWERS_OF_TEN.length) {
+                return parseDoubleSlowly(start);
+            }
+            if (numDigits == 0) {
+                valid = false;
+                return 0.0;
+            }
+            // both operands are exact, so the division yields the correctly rounded value
+            double value = numFractionDigits > 0 ? mantissa / POWERS_OF_TEN[numFractionDigits] : mantissa;
+            return negative ? -value : value;
+        }
+
+        private double parseDoubleSlowly(int start) {
+            position = start;
+            try {
+                return Double.parseDouble(nextText());
+            } catch (NumberFormatException e) {
+                valid = false;
+                return 0.0;
+            }
+        }
+
+        /**
+         * decodes a text field up to the next separator, without the blanks around it
+         */
+        String nextText() {
+            skipBlanks();
+            int start = position;
+            while (position < end && buffer.get(position) != ',') {
+                position++;
+            }
+            int stop = position;
+            while (stop > start && isBlank(buffer.get(stop - 1))) {
+                stop--;
+            }
+            byte[] bytes = new byte[stop - start];
+            for (int i = 0; i < bytes.length; i++) {
+                bytes[i] = buffer.get(start + i);
+            }
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        private void skipBlanks() {
+            while (position < end && isBlank(buffer.get(position))) {
+                position++;
+            }
+        }
+
+        private static boolean isBlank(byte b) {
+            return b == ' ' || b == '\t';
+        }
+
+        private static boolean isDigit(byte b) {
+            return b >= '0' && b <= '9';
+        }
+    }
+}
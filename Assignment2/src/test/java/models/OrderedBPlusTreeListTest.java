@@ -0,0 +1,150 @@
+package models;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OrderedBPlusTreeListTest {
+
+    OrderedList<Product> products;
+    Product product1, product2a, product3a, product6;
+
+    @BeforeEach
+    private void setup() {
+        products = new OrderedBPlusTreeList<>(Comparator.comparing(Product::getBarcode));
+        PurchaseTracker.importItemsFromFile(products,
+                OrderedBPlusTreeListTest.class.getResource("/products12.txt").getPath(),
+                Product::fromLine);
+        product1 = products.get(products.indexOf(new Product(111111111111111L)));
+        product6 = products.get(products.indexOf(new Product(666666666666666L)));
+        product2a = new Product(222222222222222L, "", 0.0);
+        product3a = new Product(333333333333334L, "geraspte wortelen", 1.00);
+    }
+
+    @Test
+    public void itemsAreAlwaysOrderedByBarcode() {
+        assertEquals(12, products.size());
+        assertEquals(111111111111110L, products.get(0).getBarcode());
+        assertEquals(111111111111111L, products.get(1).getBarcode());
+        assertEquals(666666666666666L, products.get(11).getBarcode());
+        for (int index = 0; index < products.size(); index++) {
+            assertEquals(index, products.indexOf(products.get(index)));
+        }
+        assertEquals(34.14, products.aggregate(Product::getPrice), 0.000001);
+    }
+
+    @Test
+    public void equalItemsAreKeptInOrderOfAddition() {
+        products.add(product2a);
+        int index = products.indexOf(product2a);
+        assertEquals("Mars bar", products.get(index).getTitle());
+        assertSame(product2a, products.get(index + 1));
+        products.remove(product2a);
+        assertSame(product2a, products.get(index));
+    }
+
+    @Test
+    public void mergeMergesMatchesAndAddsNewItemsInOrder() {
+        assertFalse(products.merge(new Product(666666666666666L, "", 1.00),
+                (p1, p2) -> { p1.setPrice(p1.getPrice() + p2.getPrice()); return p1; }));
+        assertTrue(products.merge(product3a, (p1, p2) -> p1));
+        assertEquals(4.00, product6.getPrice(), 0.000001);
+        assertEquals(13, products.size());
+        assertEquals(products.indexOf(new Product(333333333333333L)) + 1, products.indexOf(product3a));
+        assertFalse(products.merge(null, (p1, p2) -> p1));
+    }
+
+    @Test
+    public void positionalChangesMustSustainTheOrdening() {
+        int index = products.indexOf(product1);
+        assertThrows(IllegalArgumentException.class, () -> products.add(0, product3a));
+        assertThrows(IllegalArgumentException.class, () -> products.set(index, product3a));
+        products.add(index, new Product(111111111111111L, "Stroopwafels 8st", 1.10));
+        assertEquals("Stroopwafels 8st", products.get(index).getTitle());
+        products.set(index + 1, new Product(111111111111111L, "Stroopwafels 12st", 1.50));
+        assertEquals("Stroopwafels 12st", products.get(index + 1).getTitle());
+        assertThrows(IndexOutOfBoundsException.class, () -> products.get(13));
+    }
+
+    @Test
+    public void setAtTheStartOfALeafKeepsTheTreeOrdered() {
+        OrderedList<Integer> numbers = new OrderedBPlusTreeList<>(Comparator.naturalOrder());
+        List<Integer> expected = new ArrayList<>();
+        for (int number = 0; number < 2000; number += 10) {
+            numbers.add(number);
+            expected.add(number);
+        }
+        // the item at index 32 is the first of the second leaf
+        assertEquals(320, numbers.set(32, 315));
+        expected.set(32, 315);
+        numbers.add(317);
+        expected.add(33, 317);
+        assertEquals(expected, new ArrayList<>(numbers));
+        for (int index = 0; index < expected.size(); index++) {
+            assertEquals(index, numbers.indexOf(expected.get(index)));
+        }
+    }
+
+    @Test
+    public void sortReordersByAnotherComparator() {
+        products.sort(Comparator.comparing(Product::getTitle));
+        assertEquals("Calvé tijger nootjes", products.get(0).getTitle());
+        assertEquals(0, products.indexOf(new Product(1L, "Calvé tijger nootjes", 0.0)));
+        products.sort();
+        assertEquals("Stroopwafels 10st", products.get(11).getTitle());
+    }
+
+    @Test
+    public void iteratorRemovesItems() {
+        for (Iterator<Product> iterator = products.iterator(); iterator.hasNext(); ) {
+            if (iterator.next().getTitle().startsWith("Pizza")) {
+                iterator.remove();
+            }
+        }
+        assertEquals(6, products.size());
+        assertEquals(List.of(product1), products.subList(0, 1));
+    }
+
+    @Test
+    public void manyOperationsSustainTheRepresentationInvariant() {
+        OrderedList<Integer> numbers = new OrderedBPlusTreeList<>(Comparator.naturalOrder());
+        List<Integer> expected = new ArrayList<>();
+        Random random = new Random(2021);
+        for (int step = 0; step < 60000; step++) {
+            int number = random.nextInt(20000);
+            if (step < 30000 || random.nextInt(3) > 0 && !expected.isEmpty()) {
+                if (step < 30000 || expected.isEmpty() || random.nextBoolean()) {
+                    numbers.add(number);
+                    int index = 0;
+                    while (index < expected.size() && expected.get(index) <= number) index++;
+                    expected.add(index, number);
+                } else {
+                    int index = random.nextInt(expected.size());
+                    assertEquals(expected.remove(index), numbers.remove(index));
+                }
+            } else {
+                assertEquals(expected.indexOf(number), numbers.indexOf(number));
+                assertEquals(expected.remove((Integer) number), numbers.remove((Integer) number));
+            }
+        }
+        assertEquals(expected.size(), numbers.size());
+        assertEquals(expected, new ArrayList<>(numbers));
+        for (int index = 0; index < expected.size(); index += 97) {
+            assertEquals(expected.get(index), numbers.get(index));
+            assertEquals(expected.indexOf(expected.get(index)), numbers.indexOf(expected.get(index)));
+        }
+
+        while (!numbers.isEmpty()) {
+            numbers.remove(numbers.size() / 2);
+        }
+        numbers.add(42);
+        assertEquals(List.of(42), numbers);
+    }
+}
@@ -0,0 +1,78 @@
+package models;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ProductCatalogTest {
+
+    ProductCatalog catalog;
+    Product stroopwafels, marsbar, snickers;
+
+    @BeforeEach
+    private void setup() {
+        stroopwafels = new Product(111111111111111L, "Stroopwafels 10st", 1.23);
+        marsbar = new Product(222222222222222L, "Mars bar", 0.86);
+        snickers = new Product(333333333333333L, "Snickers", 0.97);
+        catalog = new ProductCatalog(List.of(stroopwafels, marsbar, snickers));
+    }
+
+    @Test
+    public void getFindsProductsByBarcode() {
+        assertEquals(3, catalog.size());
+        assertSame(stroopwafels, catalog.get(111111111111111L));
+        assertSame(snickers, catalog.get(333333333333333L));
+        assertNull(catalog.get(444444444444444L));
+        assertFalse(catalog.contains(0L));
+    }
+
+    @Test
+    public void putReplacesProductsWithTheSameBarcode() {
+        Product newMarsbar = new Product(222222222222222L, "Mars bar 4st", 2.99);
+        assertSame(marsbar, catalog.put(newMarsbar));
+        assertNull(catalog.put(new Product(0L, "Zero", 0.0)));
+        assertEquals(4, catalog.size());
+        assertSame(newMarsbar, catalog.get(222222222222222L));
+        assertTrue(catalog.contains(0L));
+        assertThrows(IllegalArgumentException.class, () -> catalog.put(null));
+
+        catalog.clear();
+        assertEquals(0, catalog.size());
+        assertNull(catalog.get(111111111111111L));
+    }
+
+    @Test
+    public void catalogGrowsWithManyBarcodes() {
+        List<Product> products = new ArrayList<>();
+        for (long barcode = 8710000000000L; barcode < 8710000100000L; barcode++) {
+            products.add(new Product(barcode, "product " + barcode, 1.0));
+        }
+        catalog = new ProductCatalog(products);
+        for (long barcode = 8710000100000L; barcode < 8710000200000L; barcode += 7) {
+            catalog.put(new Product(barcode));
+        }
+        for (Product product : products) {
+            assertSame(product, catalog.get(product.getBarcode()));
+        }
+        assertNotNull(catalog.get(8710000100007L));
+        assertNull(catalog.get(8710000100008L));
+    }
+
+    @Test
+    public void ordinalsFollowTheOrderOfAddition() {
+        assertEquals(0, catalog.ordinalOf(111111111111111L));
+        assertEquals(2, catalog.ordinalOf(333333333333333L));
+        assertEquals(-1, catalog.ordinalOf(444444444444444L));
+        assertSame(marsbar, catalog.getByOrdinal(1));
+
+        Product newMarsbar = new Product(222222222222222L, "Mars bar 4st", 2.99);
+        catalog.put(newMarsbar);
+        assertEquals(1, catalog.ordinalOf(222222222222222L));
+        assertSame(newMarsbar, catalog.getByOrdinal(1));
+        assertThrows(IndexOutOfBoundsException.class, () -> catalog.getByOrdinal(3));
+    }
+}
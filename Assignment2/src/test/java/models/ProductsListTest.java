@@ -7,6 +7,7 @@ import java.util.Comparator;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class ProductsListTest {
 
@@ -94,4 +95,50 @@ public class ProductsListTest {
             assertEquals(index, products.indexOf(products.get(index)));
         }
     }
+
+    @Test
+    public void sortMergesNewItemsIntoTheSortedSection() {
+        products.sort();
+        Product product0 = new Product(100000000000000L, "rijstwafels", 1.50);
+        products.add(product3b);
+        products.add(product0);
+        products.add(product3a);
+        products.add(product2a);
+        products.sort();
+
+        assertEquals(16, products.size());
+        assertEquals(products.size(), ((OrderedArrayList<Product>) products).nSorted);
+        assertSame(product0, products.get(0));
+        for (int index = 1; index < products.size(); index++) {
+            assertTrue(products.get(index - 1).getBarcode() <= products.get(index).getBarcode());
+        }
+        // the new duplicate of product2 is sorted after the original
+        assertSame(product2, products.get(4));
+        assertSame(product2a, products.get(5));
+        assertEquals(products.indexOf(product3a) + 1, products.indexOf(product3b));
+    }
+
+    @Test
+    public void mergeAllMergesMatchesAndAddsNewItemsInOrder() {
+        products.sort();
+        OrderedList<Product> batch = new OrderedArrayList<>(Comparator.comparing(Product::getBarcode));
+        batch.add(product3b);
+        batch.add(new Product(product6.getBarcode(), "", 1.00));
+        batch.add(product3a);
+        batch.add(new Product(product1.getBarcode(), "", 2.00));
+        batch.add(new Product(product3b.getBarcode(), "", 0.50));
+        batch.add(null);
+
+        int numAdded = products.mergeAll(batch, (p1, p2) -> { p1.setPrice(p1.getPrice() + p2.getPrice()); return p1;} );
+
+        assertEquals(2, numAdded);
+        assertEquals(14, products.size());
+        assertEquals(34.14 + 1.00 + 1.00 + 2.00 + 2.50 + 0.50, products.aggregate(Product::getPrice), 0.000001);
+        assertEquals(3.00 + 1.00, product6.getPrice(), 0.000001);
+        assertEquals(3.00, product3b.getPrice(), 0.000001);
+        for (int index = 0; index < products.size(); index++) {
+            assertEquals(index, products.indexOf(products.get(index)));
+        }
+        assertEquals(products.indexOf(product3a) + 1, products.indexOf(product3b));
+    }
 }
@@ -0,0 +1,70 @@
+package models;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PurchaseColumnsTest {
+
+    ProductCatalog catalog;
+    Product stroopwafels, marsbar, snickers;
+    PurchaseColumns columns;
+
+    @BeforeEach
+    private void setup() {
+        stroopwafels = new Product(111111111111111L, "Stroopwafels 10st", 1.23);
+        marsbar = new Product(222222222222222L, "Mars bar", 0.86);
+        snickers = new Product(333333333333333L, "Snickers", 0.97);
+        catalog = new ProductCatalog(List.of(stroopwafels, marsbar, snickers));
+        columns = PurchaseColumns.of(List.of(
+                new Purchase(marsbar, 20), new Purchase(stroopwafels, 10), new Purchase(snickers, 30)), catalog);
+    }
+
+    @Test
+    public void columnsHoldThePurchases() {
+        assertEquals(3, columns.size());
+        assertEquals(222222222222222L, columns.getBarcode(0));
+        assertEquals(10, columns.getCount(1));
+        assertEquals(0.97, columns.getPrice(2));
+        assertSame(stroopwafels, columns.getPurchase(1).getProduct());
+        assertEquals(10, columns.getPurchase(1).getCount());
+        assertThrows(IndexOutOfBoundsException.class, () -> columns.getCount(3));
+        assertThrows(IllegalArgumentException.class, () -> columns.add(444444444444444L, 1));
+    }
+
+    @Test
+    public void totalsMatchTheAggregatesOfThePurchases() {
+        List<Purchase> purchases = new ArrayList<>();
+        columns = new PurchaseColumns(catalog);
+        for (int i = 0; i < 1003; i++) {
+            Product product = i % 3 == 0 ? stroopwafels : i % 3 == 1 ? marsbar : snickers;
+            purchases.add(new Purchase(product, i % 17));
+            columns.add(product.getBarcode(), i % 17);
+        }
+        OrderedList<Purchase> list = new OrderedArrayList<>();
+        list.addAll(purchases);
+
+        assertEquals(1003, columns.size());
+        assertEquals((long) list.aggregate(Purchase::getCount), columns.totalCount());
+        assertEquals(list.aggregate(Purchase::getRevenue), columns.totalRevenue(), 0.000001);
+        assertEquals(list.aggregate(Purchase::getRevenue),
+                columns.aggregate((barcode, count, price) -> count * price), 0.000001);
+    }
+
+    @Test
+    public void trackerProvidesTheColumnsOfItsPurchases() {
+        PurchaseTracker purchaseTracker = new PurchaseTracker();
+        purchaseTracker.importProductsFromVault("/products.txt");
+        purchaseTracker.importPurchasesFromVault("/purchases");
+
+        PurchaseColumns trackerColumns = purchaseTracker.getPurchaseColumns();
+        assertEquals(61, trackerColumns.size());
+        assertEquals(16730, trackerColumns.totalCount());
+        assertEquals(purchaseTracker.getPurchases().stream().mapToDouble(Purchase::getRevenue).sum(),
+                trackerColumns.totalRevenue(), 0.000001);
+    }
+}
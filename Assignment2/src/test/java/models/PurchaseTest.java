@@ -36,6 +36,17 @@ public class PurchaseTest {
         assertSame(snickers, purchase3.getProduct());
     }
 
+    @Test
+    public void canConvertATextLineToAPurchaseWithACatalog() {
+        ProductCatalog catalog = new ProductCatalog(products);
+        Purchase purchase1 = Purchase.fromLine("111111111111111, 10", catalog);
+        Purchase purchase2 = Purchase.fromLine("444444444444444, 20", catalog);
+
+        assertEquals(10, purchase1.getCount());
+        assertSame(stroopwafels, purchase1.getProduct());
+        assertNull(purchase2);
+    }
+
     @Test
     public void aPurchaseHasAStringRepresentation() {
         Purchase purchase1 = Purchase.fromLine("111111111111111, 10", products);
@@ -4,6 +4,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class PurchaseTrackerTest {
 
@@ -24,4 +25,21 @@ public class PurchaseTrackerTest {
         assertEquals(61, purchaseTracker.getPurchases().size());
         assertEquals(16730, purchaseTracker.getPurchases().stream().mapToInt(Purchase::getCount).sum());
     }
+
+    @Test
+    public void parallelImportYieldsTheSameTotals() {
+        PurchaseTracker parallelTracker = new PurchaseTracker();
+        parallelTracker.importProductsFromVault("/products.txt");
+        parallelTracker.importPurchasesFromVaultInParallel("/purchases");
+
+        assertEquals(purchaseTracker.getPurchases().size(), parallelTracker.getPurchases().size());
+        for (Purchase purchase : purchaseTracker.getPurchases()) {
+            int index = parallelTracker.getPurchases().indexOf(purchase);
+            assertEquals(purchase.getCount(), parallelTracker.getPurchases().get(index).getCount());
+        }
+        for (int index = 1; index < parallelTracker.getPurchases().size(); index++) {
+            assertTrue(parallelTracker.getPurchases().get(index - 1).getBarcode()
+                    < parallelTracker.getPurchases().get(index).getBarcode());
+        }
+    }
 }
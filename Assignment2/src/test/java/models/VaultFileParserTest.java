@@ -0,0 +1,89 @@
+package models;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class VaultFileParserTest {
+
+    @TempDir
+    Path folder;
+
+    private String write(String content) throws IOException {
+        Path file = Files.createTempFile(folder, "vault", ".txt");
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+        return file.toString();
+    }
+
+    @Test
+    public void parsesPurchaseLinesAndSkipsCorruptLines() throws IOException {
+        String filePath = write("8712100516382, 10\r\n\n  8718907136068 ,29, extra\nnot a line\n123, \n42, 99999999999\n8712100516381,-3");
+        List<Long> barcodes = new ArrayList<>();
+        List<Integer> counts = new ArrayList<>();
+
+        int numLines = VaultFileParser.parsePurchases(filePath, (barcode, count) -> {
+            barcodes.add(barcode);
+            counts.add(count);
+        });
+
+        assertEquals(3, numLines);
+        assertEquals(List.of(8712100516382L, 8718907136068L, 8712100516381L), barcodes);
+        assertEquals(List.of(10, 29, -3), counts);
+    }
+
+    @Test
+    public void parsesProductLinesLikeProductFromLine() throws IOException {
+        String[] lines = {
+                "8712100516382, Calvé Pindakaas 650g, 4.25",
+                "222222222222222, Bounty bar, 0.85, 1.25",
+                "111111111111111,Mars bar,0.9",
+                "333333333333333, Big, 1.5e3",
+                "444444444444444, Exact, 0.1234567890123456789"};
+        String filePath = write(String.join("\n", lines) + "\n555555555555555, No price,\n");
+        List<Product> products = new ArrayList<>();
+
+        int numLines = VaultFileParser.parseProducts(filePath,
+                (barcode, title, price) -> products.add(new Product(barcode, title, price)));
+
+        assertEquals(lines.length, numLines);
+        for (int i = 0; i < lines.length; i++) {
+            Product expected = Product.fromLine(lines[i]);
+            assertEquals(expected.getBarcode(), products.get(i).getBarcode());
+            assertEquals(expected.getTitle(), products.get(i).getTitle());
+            assertEquals(expected.getPrice(), products.get(i).getPrice());
+        }
+    }
+
+    @Test
+    public void parsesDecimalsExactly() throws IOException {
+        StringBuilder content = new StringBuilder();
+        List<String> prices = new ArrayList<>();
+        for (int cents = 0; cents < 100000; cents += 7) {
+            String price = cents / 100 + "." + String.format("%02d", cents % 100);
+            prices.add(price);
+            content.append(cents).append(", product, ").append(price).append('\n');
+        }
+        List<Double> parsed = new ArrayList<>();
+        VaultFileParser.parseProducts(write(content.toString()), (barcode, title, price) -> parsed.add(price));
+
+        assertEquals(prices.size(), parsed.size());
+        for (int i = 0; i < prices.size(); i++) {
+            assertEquals(Double.parseDouble(prices.get(i)), parsed.get(i));
+        }
+    }
+
+    @Test
+    public void parsesEmptyFiles() throws IOException {
+        assertEquals(0, VaultFileParser.parsePurchases(write(""), (barcode, count) -> fail()));
+        assertThrows(RuntimeException.class,
+                () -> VaultFileParser.parsePurchases(folder.resolve("missing.txt").toString(), (barcode, count) -> fail()));
+    }
+}